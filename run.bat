@@ -1,3 +1,3 @@
 @echo OFF
-docker run --name remek -it --rm -p 8080:8080 remek java -jar remek.jar remek
+docker run --name remek -it --rm -p 8080:8080 remek
 pause
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.codecool.javaebremek.benchmark;
+
+import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.model.AnimalSummary;
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.model.Vet;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AnimalSerializationBenchmark {
+
+    @Param({"1", "50"})
+    private int animals;
+
+    private ObjectMapper objectMapper;
+    private List<Animal> fullAnimals;
+    private List<AnimalSummary> summaries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        fullAnimals = new ArrayList<>();
+        summaries = new ArrayList<>();
+        for (long i = 0; i < animals; i++) {
+            Owner owner = new Owner(i / 10, "Owner " + i / 10, null);
+            Vet vet = new Vet(i / 100, "Vet " + i / 100, null);
+            fullAnimals.add(new Animal(i, "Animal " + i, owner, vet));
+            summaries.add(new AnimalSummary(i, "Animal " + i, owner.getId(), vet.getId(), 0L));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeWithOwnerAndVet() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(fullAnimals);
+    }
+
+    @Benchmark
+    public byte[] serializeSummaries() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(summaries);
+    }
+}
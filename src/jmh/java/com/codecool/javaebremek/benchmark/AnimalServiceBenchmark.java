@@ -0,0 +1,62 @@
+package com.codecool.javaebremek.benchmark;
+
+import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.model.AnimalSummary;
+import com.codecool.javaebremek.paging.KeysetCursor;
+import com.codecool.javaebremek.paging.KeysetPage;
+import com.codecool.javaebremek.service.AnimalService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AnimalServiceBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"1000", "100000"})
+    private int animals;
+
+    private ConfigurableApplicationContext context;
+    private AnimalService animalService;
+    private BenchmarkApplication.Seed seed;
+    private String middleCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE);
+        animalService = context.getBean(AnimalService.class);
+        seed = BenchmarkApplication.seed(context, animals);
+        middleCursor = KeysetCursor.encode(seed.animalIds[animals / 2]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public KeysetPage<AnimalSummary> findAllFirstPage() {
+        return animalService.findAll(null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public KeysetPage<AnimalSummary> findAllMiddlePage() {
+        return animalService.findAll(middleCursor, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public KeysetPage<Animal> findAllWithOwnerAndVetFirstPage() {
+        return animalService.findAllWithOwnerAndVet(null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Optional<Animal> findById() {
+        return animalService.findById(seed.randomAnimalId());
+    }
+}
@@ -0,0 +1,86 @@
+package com.codecool.javaebremek.benchmark;
+
+import com.codecool.javaebremek.JavaEbRemekApplication;
+import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.model.Vet;
+import com.codecool.javaebremek.service.AnimalService;
+import com.codecool.javaebremek.service.OwnerService;
+import com.codecool.javaebremek.service.VetService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ToLongFunction;
+
+public final class BenchmarkApplication {
+
+    private static final int CHUNK = 1000;
+
+    private BenchmarkApplication() {
+    }
+
+    // Extra arguments are passed as command line properties, e.g. "--remek.execution.mode=bounded".
+    public static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... args) {
+        return new SpringApplicationBuilder(JavaEbRemekApplication.class)
+                .profiles("benchmark")
+                .web(webApplicationType)
+                .run(args);
+    }
+
+    // Seeds one owner per 10 animals and one vet per 100 animals.
+    public static Seed seed(ConfigurableApplicationContext context, int animals) {
+        OwnerService ownerService = context.getBean(OwnerService.class);
+        VetService vetService = context.getBean(VetService.class);
+        AnimalService animalService = context.getBean(AnimalService.class);
+
+        long[] ownerIds = insert(Math.max(1, animals / 10), i -> new Owner(null, "Owner " + i, null), ownerService::addAll, Owner::getId);
+        long[] vetIds = insert(Math.max(1, animals / 100), i -> new Vet(null, "Vet " + i, null), vetService::addAll, Vet::getId);
+        long[] animalIds = insert(animals, i -> new Animal(null, "Animal " + i,
+                        new Owner(ownerIds[i % ownerIds.length], null, null),
+                        new Vet(vetIds[i % vetIds.length], null, null)),
+                animalService::addAll, Animal::getId);
+        return new Seed(animalIds, ownerIds, vetIds);
+    }
+
+    public static final class Seed {
+
+        public final long[] animalIds;
+        public final long[] ownerIds;
+        public final long[] vetIds;
+
+        private Seed(long[] animalIds, long[] ownerIds, long[] vetIds) {
+            this.animalIds = animalIds;
+            this.ownerIds = ownerIds;
+            this.vetIds = vetIds;
+        }
+
+        public long randomAnimalId() {
+            return animalIds[ThreadLocalRandom.current().nextInt(animalIds.length)];
+        }
+
+        public long randomOwnerId() {
+            return ownerIds[ThreadLocalRandom.current().nextInt(ownerIds.length)];
+        }
+    }
+
+    private static <T> long[] insert(int count, IntFunction<T> factory, Function<List<T>, List<T>> addAll, ToLongFunction<T> idOf) {
+        long[] ids = new long[count];
+        for (int start = 0; start < count; start += CHUNK) {
+            List<T> chunk = new ArrayList<>();
+            for (int i = start; i < Math.min(count, start + CHUNK); i++) {
+                chunk.add(factory.apply(i));
+            }
+            List<T> saved = addAll.apply(chunk);
+            for (int i = 0; i < saved.size(); i++) {
+                ids[start + i] = idOf.applyAsLong(saved.get(i));
+            }
+        }
+        return ids;
+    }
+}
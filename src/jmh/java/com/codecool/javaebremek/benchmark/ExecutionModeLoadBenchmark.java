@@ -0,0 +1,80 @@
+package com.codecool.javaebremek.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+// Many more client threads than Hikari connections: in platform mode they queue inside Tomcat and Hikari,
+// in bounded mode the surplus is answered with 429 right away. Compare throughput, latency and the rejected counter.
+// mvn -Pbenchmark test-compile exec:exec -Djmh.args="ExecutionModeLoad"
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(64)
+public class ExecutionModeLoadBenchmark {
+
+    @Param({"platform", "bounded"})
+    private String mode;
+
+    @Param({"4"})
+    private int poolSize;
+
+    // Only read in bounded mode; the defaults match the application's. A 100ms queue timeout reproduces the
+    // rejection storm where clients spend the CPU on 429 round trips.
+    @Param({"4"})
+    private int maxConcurrent;
+
+    @Param({"2000"})
+    private long queueTimeoutMillis;
+
+    // Clients back off briefly after a 429 instead of hammering the server in a tight loop.
+    @Param({"50"})
+    private long backoffMillis;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest fullPage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET,
+                "--remek.execution.mode=" + mode,
+                "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "--remek.execution.max-concurrent=" + maxConcurrent,
+                "--remek.execution.queue-timeout-ms=" + queueTimeoutMillis);
+        BenchmarkApplication.seed(context, 10000);
+        String port = context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newHttpClient();
+        fullPage = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/animals?view=full&size=500")).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+        public long ok;
+        public long rejected;
+    }
+
+    @Benchmark
+    public int getFullPage(Outcomes outcomes) throws Exception {
+        int status = client.send(fullPage, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status == 429) {
+            outcomes.rejected++;
+            Thread.sleep(backoffMillis);
+        } else {
+            outcomes.ok++;
+        }
+        return status;
+    }
+}
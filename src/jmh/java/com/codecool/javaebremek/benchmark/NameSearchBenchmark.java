@@ -0,0 +1,65 @@
+package com.codecool.javaebremek.benchmark;
+
+import com.codecool.javaebremek.search.NameIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Front-desk style queries against the in-process name index; read p0.99 from the sample-time output.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NameSearchBenchmark {
+
+    private static final String[] FIRST = {"Max", "Bella", "Charlie", "Luna", "Rocky", "Daisy", "Milo", "Coco",
+            "Buddy", "Lucy", "Oscar", "Molly", "Teddy", "Zoë", "Jax", "Rex", "Nala", "Simba", "Ginger", "Pepper"};
+    private static final String[] LAST = {"Smith", "Kovács", "Nagy", "Brown", "Tóth", "Szabó", "Miller", "Horváth",
+            "Wilson", "Varga", "Taylor", "Kiss", "Moore", "Molnár", "Clark", "Németh", "Lewis", "Farkas", "Walker", "Balogh"};
+
+    @Param({"1000000"})
+    private int names;
+
+    private NameIndex index;
+    private String[] generated;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        index = new NameIndex();
+        generated = new String[names];
+        for (int i = 0; i < names; i++) {
+            generated[i] = FIRST[random.nextInt(FIRST.length)] + " " + LAST[random.nextInt(LAST.length)] + " " + random.nextInt(10000);
+            index.put((long) i + 1, 0, generated[i]);
+        }
+    }
+
+    @Benchmark
+    public List<Long> prefix() {
+        String name = randomName();
+        return index.search(name.substring(0, 2), 20);
+    }
+
+    @Benchmark
+    public List<Long> substring() {
+        String name = randomName();
+        int at = name.indexOf(' ') + 2;
+        return index.search(name.substring(at, at + 4), 20);
+    }
+
+    @Benchmark
+    public List<Long> fullName() {
+        return index.search(randomName(), 20);
+    }
+
+    @Benchmark
+    public List<Long> noMatch() {
+        return index.search("qqxz", 20);
+    }
+
+    private String randomName() {
+        return generated[ThreadLocalRandom.current().nextInt(generated.length)];
+    }
+}
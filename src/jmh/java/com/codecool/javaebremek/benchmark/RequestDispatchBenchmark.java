@@ -0,0 +1,53 @@
+package com.codecool.javaebremek.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RequestDispatchBenchmark {
+
+    @Param({"1000", "100000"})
+    private int animals;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private BenchmarkApplication.Seed seed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        seed = BenchmarkApplication.seed(context, animals);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult getAnimals() throws Exception {
+        return mockMvc.perform(get("/animals")).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getAnimalById() throws Exception {
+        return mockMvc.perform(get("/animals/{id}", seed.randomAnimalId())).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getOwnerById() throws Exception {
+        return mockMvc.perform(get("/owners/{id}", seed.randomOwnerId())).andReturn();
+    }
+}
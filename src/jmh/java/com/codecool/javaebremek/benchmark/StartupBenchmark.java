@@ -0,0 +1,160 @@
+package com.codecool.javaebremek.benchmark;
+
+import com.codecool.javaebremek.JavaEbRemekApplication;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Time from launching a fresh JVM to the first successful GET /owners, the same path a new container takes.
+// Application classes are packed into a jar because class data sharing cannot archive classes from directories.
+// mvn -Pbenchmark test-compile exec:exec -Djmh.args="Startup"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final Duration STARTUP_LIMIT = Duration.ofMinutes(2);
+
+    @Param({"false", "true"})
+    private boolean fastStartup;
+
+    // Dynamic AppCDS archive recorded by one training run per trial, as the Dockerfile does at image build time.
+    @Param({"false", "true"})
+    private boolean cds;
+
+    private Path workDir;
+    private String classpath;
+    private Path archive;
+    private HttpClient client;
+    private Process process;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workDir = Paths.get("target", "startup");
+        Files.createDirectories(workDir);
+        classpath = classpath();
+        client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        if (cds) {
+            archive = workDir.resolve("remek-" + (fastStartup ? "fast" : "default") + ".jsa");
+            Files.deleteIfExists(archive);
+            Process training = launch("-XX:ArchiveClassesAtExit=" + archive);
+            stop(training);
+            if (!Files.exists(archive)) {
+                throw new IllegalStateException("Training run did not write " + archive + ", dynamic AppCDS needs Java 13+");
+            }
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopApplication() throws InterruptedException {
+        stop(process);
+    }
+
+    @Benchmark
+    public void timeToFirstRequest() throws Exception {
+        process = cds ? launch("-XX:SharedArchiveFile=" + archive) : launch();
+    }
+
+    private Process launch(String... jvmArgs) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xlog:cds=error");
+        command.addAll(Arrays.asList(jvmArgs));
+        command.addAll(List.of("-cp", classpath, JavaEbRemekApplication.class.getName(),
+                "--server.port=" + port,
+                "--spring.profiles.active=" + (fastStartup ? "prod,fast-startup" : "prod")));
+        Process started = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(workDir.resolve("startup.log").toFile())
+                .start();
+        awaitFirstRequest(started, URI.create("http://localhost:" + port + "/owners"));
+        return started;
+    }
+
+    private void awaitFirstRequest(Process started, URI uri) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+        long deadline = System.nanoTime() + STARTUP_LIMIT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!started.isAlive()) {
+                throw new IllegalStateException(String.format("Application exited with %d, see %s",
+                        started.exitValue(), workDir.resolve("startup.log")));
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (ConnectException e) {
+                // Not listening yet.
+            }
+            Thread.sleep(10);
+        }
+        stop(started);
+        throw new IllegalStateException("No successful request within " + STARTUP_LIMIT);
+    }
+
+    // SIGTERM, so the JVM exits normally and a training run gets to write its archive.
+    private static void stop(Process running) throws InterruptedException {
+        if (running == null) {
+            return;
+        }
+        running.destroy();
+        if (!running.waitFor(1, TimeUnit.MINUTES)) {
+            running.destroyForcibly().waitFor();
+        }
+    }
+
+    private String classpath() throws IOException {
+        Path classes = Paths.get(JavaEbRemekApplication.class.getProtectionDomain().getCodeSource().getLocation().getPath());
+        Path appJar = workDir.resolve("app.jar");
+        jar(classes, appJar);
+        Stream<String> dependencies = Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+                .filter(entry -> entry.endsWith(".jar"));
+        return Stream.concat(Stream.of(appJar.toString()), dependencies).collect(Collectors.joining(File.pathSeparator));
+    }
+
+    // Directory entries are kept: component scanning looks packages up as jar directories.
+    private static void jar(Path classes, Path target) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(classes)) {
+            paths = walk.filter(path -> !path.equals(classes)).sorted().collect(Collectors.toList());
+        }
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(target))) {
+            for (Path path : paths) {
+                String name = classes.relativize(path).toString().replace(File.separatorChar, '/');
+                boolean directory = Files.isDirectory(path);
+                out.putNextEntry(new JarEntry(directory ? name + "/" : name));
+                if (!directory) {
+                    Files.copy(path, out);
+                }
+                out.closeEntry();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
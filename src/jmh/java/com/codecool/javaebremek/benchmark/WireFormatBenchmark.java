@@ -0,0 +1,91 @@
+package com.codecool.javaebremek.benchmark;
+
+import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.model.Vet;
+import com.codecool.javaebremek.wireformat.ProtobufCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Encode and decode time of the full animal view (nested owner and vet) per wire format.
+// Payload sizes are printed once per trial, since they do not change between iterations.
+// mvn -Pbenchmark test-compile exec:exec -Djmh.args="WireFormat"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class WireFormatBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int animals;
+
+    @Param({"json", "cbor", "smile", "protobuf"})
+    private String format;
+
+    private List<Animal> payload;
+    private ObjectMapper mapper;
+    private ObjectReader listReader;
+    private ProtobufCodec protobufCodec;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        payload = new ArrayList<>(animals);
+        for (long i = 0; i < animals; i++) {
+            Owner owner = new Owner(i / 10, "Owner " + i / 10, null, 0L, 0);
+            Vet vet = new Vet(i / 100, "Vet " + i / 100, null, 0L, 0);
+            payload.add(new Animal(i, "Animal " + i, owner, vet, 0L));
+        }
+        switch (format) {
+            case "json":
+                mapper = Jackson2ObjectMapperBuilder.json().build();
+                break;
+            case "cbor":
+                mapper = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+                break;
+            case "smile":
+                mapper = Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+                break;
+            case "protobuf":
+                protobufCodec = new ProtobufCodec();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown format " + format);
+        }
+        if (mapper != null) {
+            listReader = mapper.readerForListOf(Animal.class);
+        }
+        encoded = encode();
+        System.out.printf("%n%s, %d animals: %d bytes (%.1f bytes/animal)%n",
+                format, animals, encoded.length, (double) encoded.length / animals);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        if (protobufCodec != null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            protobufCodec.write(payload, out);
+            return out.toByteArray();
+        }
+        return mapper.writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public List<Animal> decode() throws IOException {
+        if (protobufCodec != null) {
+            return protobufCodec.readList(new ByteArrayInputStream(encoded), Animal.class);
+        }
+        return listReader.readValue(encoded);
+    }
+}
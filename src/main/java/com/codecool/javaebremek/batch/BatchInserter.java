@@ -0,0 +1,135 @@
+package com.codecool.javaebremek.batch;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+public class BatchInserter {
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final MediaType NDJSON = MediaType.parseMediaType(NDJSON_VALUE);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int chunkSize;
+
+    // Accepts a JSON array or NDJSON and answers with one NDJSON result line per input item, written chunk by chunk.
+    public <T> ResponseEntity<StreamingResponseBody> insert(InputStream body, Class<T> type,
+                                                            Function<List<T>, List<T>> saveChunk,
+                                                            Function<T, Long> idOf) {
+        StreamingResponseBody stream = out -> new Run<>(out, type, saveChunk, idOf).consume(body);
+        return ResponseEntity.ok().contentType(NDJSON).body(stream);
+    }
+
+    private class Run<T> {
+
+        private final JsonGenerator generator;
+        private final ObjectWriter writer;
+        private final Class<T> type;
+        private final Function<List<T>, List<T>> saveChunk;
+        private final Function<T, Long> idOf;
+        private final List<T> pending = new ArrayList<>();
+        private final List<Integer> pendingIndexes = new ArrayList<>();
+        private int index;
+
+        private Run(OutputStream out, Class<T> type, Function<List<T>, List<T>> saveChunk, Function<T, Long> idOf) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .setRootValueSeparator(null);
+            this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            this.type = type;
+            this.saveChunk = saveChunk;
+            this.idOf = idOf;
+        }
+
+        private void consume(InputStream body) throws IOException {
+            try (MappingIterator<JsonNode> items = objectMapper.readerFor(JsonNode.class).readValues(body)) {
+                while (items.hasNextValue()) {
+                    accept(items.nextValue());
+                    index++;
+                }
+            } catch (JsonProcessingException e) {
+                flushPending();
+                write(BatchItemResult.failed(index, String.format("Malformed input, import stopped: %s", e.getOriginalMessage())));
+            }
+            flushPending();
+            generator.flush();
+        }
+
+        private void accept(JsonNode node) throws IOException {
+            T item;
+            try {
+                item = objectMapper.treeToValue(node, type);
+            } catch (JsonProcessingException e) {
+                write(BatchItemResult.invalid(index, List.of(e.getOriginalMessage())));
+                return;
+            }
+            Set<ConstraintViolation<T>> violations = validator.validate(item);
+            if (!violations.isEmpty()) {
+                write(BatchItemResult.invalid(index, violations.stream()
+                        .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.toList())));
+                return;
+            }
+            pending.add(item);
+            pendingIndexes.add(index);
+            if (pending.size() >= chunkSize) {
+                flushPending();
+            }
+        }
+
+        private void flushPending() throws IOException {
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                List<T> saved = saveChunk.apply(new ArrayList<>(pending));
+                for (int i = 0; i < saved.size(); i++) {
+                    write(BatchItemResult.created(pendingIndexes.get(i), idOf.apply(saved.get(i))));
+                }
+            } catch (RuntimeException e) {
+                String error = String.format("Could not be saved: %s", NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                for (Integer pendingIndex : pendingIndexes) {
+                    write(BatchItemResult.failed(pendingIndex, error));
+                }
+            }
+            pending.clear();
+            pendingIndexes.clear();
+            generator.flush();
+        }
+
+        private void write(BatchItemResult result) throws IOException {
+            writer.writeValue(generator, result);
+            generator.writeRaw('\n');
+        }
+    }
+}
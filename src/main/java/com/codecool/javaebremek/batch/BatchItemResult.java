@@ -0,0 +1,34 @@
+package com.codecool.javaebremek.batch;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+
+    public enum Status {
+        CREATED, INVALID, FAILED
+    }
+
+    private final int index;
+    private final Status status;
+    private final Long id;
+    private final List<String> errors;
+
+    public static BatchItemResult created(int index, Long id) {
+        return new BatchItemResult(index, Status.CREATED, id, null);
+    }
+
+    public static BatchItemResult invalid(int index, List<String> errors) {
+        return new BatchItemResult(index, Status.INVALID, null, errors);
+    }
+
+    public static BatchItemResult failed(int index, String error) {
+        return new BatchItemResult(index, Status.FAILED, null, List.of(error));
+    }
+}
@@ -0,0 +1,16 @@
+package com.codecool.javaebremek.cache;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String OWNERS = "owners";
+    public static final String VETS = "vets";
+
+    // The cache is only filled from the primary. Reads pinned to it still skip the cache: a load that began before the
+    // client's own write committed can put the old row back after that write's eviction.
+    public static final String UNPINNED = "!T(com.codecool.javaebremek.datasource.ReadYourWritesFilter).isPinnedToPrimary()";
+}
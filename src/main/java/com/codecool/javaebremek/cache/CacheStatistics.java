@@ -0,0 +1,21 @@
+package com.codecool.javaebremek.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CacheStatistics {
+
+    private final String name;
+    private final long size;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final double hitRate;
+
+    public static CacheStatistics of(String name, long size, CacheStats stats) {
+        return new CacheStatistics(name, size, stats.hitCount(), stats.missCount(), stats.evictionCount(), stats.hitRate());
+    }
+}
@@ -0,0 +1,139 @@
+package com.codecool.javaebremek.changes;
+
+import com.codecool.javaebremek.datasource.ReadYourWritesFilter;
+import com.codecool.javaebremek.model.ChangeEvent;
+import com.codecool.javaebremek.service.ChangeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+// Server-Sent Events over the outbox. One poller serves every subscriber; subscribers at the same position
+// share a query, and each batch goes out as a single "changes" event whose id is the last sequence in it.
+// Sends run on the feed's own threads, so a slow client holds up neither other subscribers nor other scheduled jobs.
+@Component
+public class ChangeFeed {
+
+    public static final String EVENT_NAME = "changes";
+
+    @Autowired
+    private ChangeService changeService;
+
+    @Value("${remek.changes.batch-size:500}")
+    private int batchSize;
+
+    @Value("${remek.changes.sse-timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    @Value("${remek.changes.send-threads:4}")
+    private int sendThreads;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private ExecutorService senders;
+
+    @PostConstruct
+    void startSenders() {
+        senders = Executors.newFixedThreadPool(sendThreads, new CustomizableThreadFactory("change-feed-"));
+    }
+
+    @PreDestroy
+    void stopSenders() {
+        senders.shutdownNow();
+    }
+
+    public SseEmitter subscribe(long since) {
+        if (since < 0) {
+            throw new IllegalArgumentException(String.format("Sequence must not be negative, got %d", since));
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, since, ReadYourWritesFilter.pinnedUntil());
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Scheduled(fixedDelayString = "${remek.changes.poll-ms:250}")
+    public void dispatch() {
+        // A subscriber still busy with its previous batch is skipped and catches up from its position next round.
+        Map<Long, List<Subscriber>> byPosition = subscribers.stream()
+                .filter(subscriber -> !subscriber.sending.get())
+                .collect(Collectors.groupingBy(subscriber -> subscriber.position));
+        byPosition.forEach((position, group) -> {
+            // A client that subscribed right after its own write reads the primary until that pin runs out.
+            long pinnedUntil = group.stream().mapToLong(subscriber -> subscriber.pinnedUntil).max().orElse(0);
+            List<ChangeEvent> events = ReadYourWritesFilter.withPin(pinnedUntil, () -> changeService.readBatch(position, batchSize));
+            if (!events.isEmpty()) {
+                group.forEach(subscriber -> subscriber.sendAsync(events));
+            }
+        });
+    }
+
+    private class Subscriber {
+
+        private final SseEmitter emitter;
+        private volatile long position;
+        private final long pinnedUntil;
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, long position, long pinnedUntil) {
+            this.emitter = emitter;
+            this.position = position;
+            this.pinnedUntil = pinnedUntil;
+        }
+
+        private void sendAsync(List<ChangeEvent> events) {
+            if (!sending.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                senders.execute(() -> {
+                    try {
+                        send(events);
+                    } finally {
+                        sending.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the client resumes later with Last-Event-ID.
+                sending.set(false);
+            }
+        }
+
+        private void send(List<ChangeEvent> events) {
+            long last = events.get(events.size() - 1).getSequence();
+            try {
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(last))
+                        .name(EVENT_NAME)
+                        .data(events, MediaType.APPLICATION_JSON));
+                position = last;
+            } catch (IOException | IllegalStateException e) {
+                // The client went away; it resumes later with Last-Event-ID.
+                subscribers.remove(this);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.codecool.javaebremek.changes;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+
+// Numbers committed change events in the order they became visible. The insert id follows insert order, and a
+// transaction that inserted early can commit late, so consumers resume from the publish sequence instead: only
+// committed rows get one, and the change_relay row lock lets a single transaction at a time hand them out, so
+// the published sequence has no holes and never grows behind a consumer's position.
+@Component
+public class ChangeRelay {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChangeRelay.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${remek.changes.batch-size:500}")
+    private int batchSize;
+
+    private TransactionTemplate requiresNew;
+
+    @PostConstruct
+    void createTemplate() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Writers call this after their commit; the sweep catches events whose writer stopped before it got here.
+    @Scheduled(initialDelayString = "${remek.changes.relay-sweep-ms:1000}",
+            fixedDelayString = "${remek.changes.relay-sweep-ms:1000}")
+    public void publish() {
+        int published;
+        do {
+            published = requiresNew.execute(status -> publishBatch());
+        } while (published == batchSize);
+    }
+
+    void publishQuietly() {
+        try {
+            publish();
+        } catch (DataAccessException e) {
+            LOG.warn("Publishing change events failed, the next sweep retries", e);
+        }
+    }
+
+    private int publishBatch() {
+        jdbcTemplate.queryForObject("select id from change_relay where id = 1 for update", Integer.class);
+        long last = jdbcTemplate.queryForObject("select coalesce(max(publish_sequence), 0) from change_event", Long.class);
+        List<Long> ids = jdbcTemplate.queryForList(
+                "select id from change_event where publish_sequence is null order by id limit ?", Long.class, batchSize);
+        List<Object[]> numbered = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            numbered.add(new Object[]{last + i + 1, ids.get(i)});
+        }
+        jdbcTemplate.batchUpdate("update change_event set publish_sequence = ? where id = ?", numbered);
+        return ids.size();
+    }
+}
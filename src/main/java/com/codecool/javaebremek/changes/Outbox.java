@@ -0,0 +1,63 @@
+package com.codecool.javaebremek.changes;
+
+import com.codecool.javaebremek.model.ChangeEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Function;
+
+// Writes change events on the caller's connection, so an event commits or rolls back with the change it describes.
+@Component
+public class Outbox {
+
+    private static final String INSERT =
+            "insert into change_event (entity, entity_id, operation, version, created_at) values (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ChangeRelay changeRelay;
+
+    private final TransactionSynchronization publishAfterCommit = new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+            changeRelay.publishQuietly();
+        }
+    };
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String entity, Long id, ChangeEvent.Operation operation, Long version) {
+        jdbcTemplate.update(INSERT, entity, id, operation.name(), version, Timestamp.from(Instant.now()));
+        publishAfterCommit();
+    }
+
+    // A whole batch goes out as one JDBC batch instead of a statement per row.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T> void recordAll(String entity, List<T> items, Function<T, Long> idOf, Function<T, Long> versionOf,
+                              ChangeEvent.Operation operation) {
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT, items, items.size(), (statement, item) -> {
+            statement.setString(1, entity);
+            statement.setLong(2, idOf.apply(item));
+            statement.setString(3, operation.name());
+            statement.setObject(4, versionOf.apply(item), Types.BIGINT);
+            statement.setTimestamp(5, now);
+        });
+        publishAfterCommit();
+    }
+
+    // Registering the same synchronization again is a no-op, so a transaction with many events publishes once.
+    private void publishAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(publishAfterCommit);
+    }
+}
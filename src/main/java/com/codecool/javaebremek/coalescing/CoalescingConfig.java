@@ -0,0 +1,35 @@
+package com.codecool.javaebremek.coalescing;
+
+import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.model.EntityNames;
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.model.Vet;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Optional;
+
+@Configuration
+public class CoalescingConfig {
+
+    @Value("${remek.singleflight.timeout-ms:2000}")
+    private long timeoutMillis;
+
+    @Bean
+    public SingleFlight<RoutedKey<Long>, Optional<Owner>> ownerLoads(MeterRegistry meterRegistry) {
+        return new SingleFlight<>(EntityNames.OWNERS, Duration.ofMillis(timeoutMillis), meterRegistry);
+    }
+
+    @Bean
+    public SingleFlight<RoutedKey<Long>, Optional<Vet>> vetLoads(MeterRegistry meterRegistry) {
+        return new SingleFlight<>(EntityNames.VETS, Duration.ofMillis(timeoutMillis), meterRegistry);
+    }
+
+    @Bean
+    public SingleFlight<RoutedKey<Long>, Optional<Animal>> animalLoads(MeterRegistry meterRegistry) {
+        return new SingleFlight<>(EntityNames.ANIMALS, Duration.ofMillis(timeoutMillis), meterRegistry);
+    }
+}
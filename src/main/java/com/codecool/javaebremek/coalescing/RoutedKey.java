@@ -0,0 +1,17 @@
+package com.codecool.javaebremek.coalescing;
+
+import com.codecool.javaebremek.datasource.ReadWriteRoutingDataSource;
+import lombok.Value;
+
+// Only callers whose reads go to the same database share a flight: a request pinned to the primary
+// must not be handed the replica's possibly lagging row by an unpinned caller's load.
+@Value
+public class RoutedKey<K> {
+
+    ReadWriteRoutingDataSource.Route route;
+    K key;
+
+    public static <K> RoutedKey<K> of(K key) {
+        return new RoutedKey<>(ReadWriteRoutingDataSource.readRoute(), key);
+    }
+}
@@ -0,0 +1,105 @@
+package com.codecool.javaebremek.coalescing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Concurrent loads of the same key share one in-flight call: the first caller runs it, the others wait on its future.
+// The entry is dropped as soon as the load completes, so this never serves stale results; caching stays the cache's job.
+public class SingleFlight<K, V> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SingleFlight.class);
+
+    public static final String CALLS_METRIC = "remek.singleflight.calls";
+    public static final String IN_FLIGHT_METRIC = "remek.singleflight.in.flight";
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final String name;
+    private final Duration timeout;
+    private final Counter leaders;
+    private final Counter collapsed;
+    private final Counter timedOut;
+
+    public SingleFlight(String name, Duration timeout, MeterRegistry meterRegistry) {
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException(String.format("Single-flight timeout must be positive, got %s", timeout));
+        }
+        this.name = name;
+        this.timeout = timeout;
+        this.leaders = calls(meterRegistry, "leader", "Loads that went to the database");
+        this.collapsed = calls(meterRegistry, "collapsed", "Calls answered by another caller's in-flight load");
+        this.timedOut = calls(meterRegistry, "timeout", "Calls that gave up waiting and loaded on their own");
+        Gauge.builder(IN_FLIGHT_METRIC, inFlight, ConcurrentMap::size)
+                .description("Keys with a load currently in flight")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, own);
+        if (running == null) {
+            leaders.increment();
+            return lead(key, own, loader);
+        }
+        try {
+            V value = running.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            collapsed.increment();
+            return value;
+        } catch (TimeoutException e) {
+            // A stuck leader must not stall every follower; this caller pays for its own query instead.
+            timedOut.increment();
+            LOG.warn("Gave up waiting {} ms for the in-flight {} load of {}, loading directly", timeout.toMillis(), name, key);
+            return loader.get();
+        } catch (ExecutionException e) {
+            collapsed.increment();
+            throw rethrow(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("Interrupted while waiting for the %s load of %s", name, key), e);
+        }
+    }
+
+    private V lead(K key, CompletableFuture<V> own, Supplier<V> loader) {
+        try {
+            V value = loader.get();
+            own.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    // Followers see the leader's own exception, so callers map failures exactly as they would for a direct load.
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    private Counter calls(MeterRegistry meterRegistry, String result, String description) {
+        return Counter.builder(CALLS_METRIC)
+                .description(description)
+                .tag("name", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,68 @@
+package com.codecool.javaebremek.conditional;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public final class ETags {
+
+    public static final String ANY = "*";
+
+    private static final String MISSING = "-";
+    private static final String WEAK_PREFIX = "W/";
+
+    private ETags() {
+    }
+
+    // "3" for a row at version 3, "3.1.-" for a row at version 3 referencing rows at version 1 and none.
+    public static String forVersions(Long... versions) {
+        return Arrays.stream(versions)
+                .map(version -> version == null ? MISSING : version.toString())
+                .collect(Collectors.joining(".", "\"", "\""));
+    }
+
+    // A page changes when any row id or version on it, or the next cursor, changes. The tag is weak: pages are
+    // not byte-identical across encodings, and Tomcat does not compress responses that carry a strong tag.
+    public static <T> String forPage(List<T> items, String nextCursor, Function<T, String> fingerprint) {
+        String content = items.stream().map(fingerprint).collect(Collectors.joining(",")) + "|" + nextCursor;
+        return WEAK_PREFIX + "\"" + DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    public static String fingerprint(Long id, Long version) {
+        return id + ":" + version;
+    }
+
+    // If-None-Match uses the weak comparison, so a W/ prefix on either side is ignored.
+    public static boolean anyMatches(String ifNoneMatch, String eTag) {
+        String current = opaque(eTag);
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (ANY.equals(candidate) || opaque(candidate).equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith(WEAK_PREFIX) ? tag.substring(WEAK_PREFIX.length()) : tag;
+    }
+
+    // Reads the row version back out of a strong If-Match tag; null when the tag was not issued by forVersions.
+    public static Long expectedVersion(String ifMatch) {
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            return null;
+        }
+        String rowVersion = tag.substring(1, tag.length() - 1).split("\\.", 2)[0];
+        try {
+            return Long.valueOf(rowVersion);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -1,13 +1,31 @@
 package com.codecool.javaebremek.controller;
 
+import com.codecool.javaebremek.batch.BatchInserter;
+import com.codecool.javaebremek.conditional.ETags;
 import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.model.AnimalFieldSelection;
+import com.codecool.javaebremek.model.AnimalSummary;
+import com.codecool.javaebremek.model.BulkDeleteRequest;
+import com.codecool.javaebremek.model.LookupRequest;
+import com.codecool.javaebremek.patch.MergePatch;
+import com.codecool.javaebremek.patch.PatchResult;
 import com.codecool.javaebremek.service.AnimalService;
+import com.codecool.javaebremek.streaming.JsonStreamer;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/animals")
@@ -16,9 +34,95 @@ public class AnimalController {
     @Autowired
     private AnimalService animalService;
 
+    @Autowired
+    private BatchInserter batchInserter;
+
+    @Autowired
+    private JsonStreamer jsonStreamer;
+
+    @GetMapping(params = {"!ids", "!fields", "!expand", "view!=full"})
+    public ResponseEntity<List<AnimalSummary>> findAll(@RequestParam(required = false) String cursor,
+                                                       @RequestParam(required = false) Integer size,
+                                                       @RequestParam(defaultValue = "summary") String view) {
+        if (!"summary".equals(view)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return animalService.findAll(cursor, size).toResponse(animal -> ETags.fingerprint(animal.getId(), animal.getVersion()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(params = {"!ids", "!fields", "!expand", "view=full"})
+    public ResponseEntity<List<Animal>> findAllWithOwnerAndVet(@RequestParam(required = false) String cursor,
+                                                               @RequestParam(required = false) Integer size) {
+        try {
+            return animalService.findAllWithOwnerAndVet(cursor, size).toResponse(animal -> animal.getId() + versionTag(animal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Id lookups and field selections; the plain listings above declare their element types for the wire formats.
     @GetMapping
-    public ResponseEntity<?> findAll() {
-        return ResponseEntity.ok(animalService.findAll());
+    public ResponseEntity<?> findSelected(@RequestParam(required = false) String cursor,
+                                          @RequestParam(required = false) Integer size,
+                                          @RequestParam(defaultValue = "summary") String view,
+                                          @RequestParam(required = false) String fields,
+                                          @RequestParam(required = false) String expand,
+                                          @RequestParam(required = false) List<Long> ids) {
+        if (ids != null) {
+            boolean paged = cursor != null || size != null || fields != null || expand != null;
+            return paged ? ResponseEntity.badRequest().build() : lookup(new LookupRequest(ids), view);
+        }
+        if (!"summary".equals(view)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return animalService.findFields(AnimalFieldSelection.parse(fields, expand), cursor, size).toResponse();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // The POST form takes id lists too long for a query string.
+    @PostMapping("/lookup")
+    public ResponseEntity<?> lookup(@RequestBody LookupRequest request, @RequestParam(defaultValue = "summary") String view) {
+        try {
+            switch (view) {
+                case "summary":
+                    return ResponseEntity.ok(animalService.findAllById(request.getIds()));
+                case "full":
+                    return ResponseEntity.ok(animalService.findAllWithOwnerAndVetById(request.getIds()));
+                default:
+                    return ResponseEntity.badRequest().build();
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return jsonStreamer.jsonArray(animalService::streamAll);
+    }
+
+    @GetMapping(path = "/stream", produces = BatchInserter.NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllAsNdjson() {
+        return jsonStreamer.ndjson(animalService::streamAll);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<AnimalSummary>> search(@RequestParam String q, @RequestParam(required = false) Integer limit) {
+        if (q.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(animalService.search(q, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @PostMapping
@@ -29,26 +133,115 @@ public class AnimalController {
         return ResponseEntity.ok(animalService.add(animal));
     }
 
+    @PostMapping(path = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, BatchInserter.NDJSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> addBatch(InputStream body) {
+        return batchInserter.insert(body, Animal.class, animalService::addAll, Animal::getId);
+    }
+
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateById(@PathVariable Long id, @RequestBody @Valid Animal animal, BindingResult bindingResult) {
+    public ResponseEntity<?> updateById(@PathVariable Long id, @RequestBody @Valid Animal animal, BindingResult bindingResult,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest().build();
         }
+        if (ifMatch != null && !ETags.ANY.equals(ifMatch.trim())) {
+            Long expectedVersion = ETags.expectedVersion(ifMatch);
+            if (expectedVersion == null) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+            }
+            animal.setVersion(expectedVersion);
+        }
         try {
             Animal result = animalService.updateById(id, animal);
             return ResponseEntity.ok(result);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(ifMatch == null ? HttpStatus.CONFLICT : HttpStatus.PRECONDITION_FAILED).build();
         } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
+            return ifMatch == null ? ResponseEntity.notFound().build() : ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+    }
+
+    @PatchMapping(path = "/{id}", consumes = {MergePatch.MERGE_PATCH_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> patchById(@PathVariable Long id, @RequestBody JsonNode patch,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = null;
+        if (ifMatch != null && !ETags.ANY.equals(ifMatch.trim())) {
+            expectedVersion = ETags.expectedVersion(ifMatch);
+            if (expectedVersion == null) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+            }
+        }
+        try {
+            PatchResult<Animal> result = animalService.patchById(id, patch, expectedVersion);
+            return ResponseEntity.ok()
+                    .eTag(versionTag(result.getEntity()))
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .header(MergePatch.CHANGED_HEADER, String.valueOf(result.isChanged()))
+                    .body(result.getEntity());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(ifMatch == null ? HttpStatus.CONFLICT : HttpStatus.PRECONDITION_FAILED).build();
+        } catch (RuntimeException e) {
+            return ifMatch == null ? ResponseEntity.notFound().build() : ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
         }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable Long id) {
-        return ResponseEntity.ok(animalService.findById(id));
+    public ResponseEntity<?> findById(@PathVariable Long id,
+                                      @RequestParam(required = false) String fields,
+                                      @RequestParam(required = false) String expand,
+                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Field-selected responses carry no ETag: the selection may leave out the versions a tag would cover.
+        if (fields != null || expand != null) {
+            try {
+                return ResponseEntity.ok(animalService.findFieldsById(AnimalFieldSelection.parse(fields, expand), id));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        // Revalidation compares against the three versions alone, so an unchanged animal is answered without loading it.
+        if (ifNoneMatch != null) {
+            Optional<String> current = animalService.findVersionsById(id)
+                    .map(versions -> ETags.forVersions(versions.getVersion(), versions.getOwnerVersion(), versions.getVetVersion()));
+            if (current.isPresent() && ETags.anyMatches(ifNoneMatch, current.get())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current.get()).varyBy(HttpHeaders.ACCEPT).build();
+            }
+        }
+        Optional<Animal> animal = animalService.findById(id);
+        if (animal.isEmpty()) {
+            return ResponseEntity.ok(animal);
+        }
+        return ResponseEntity.ok().eTag(versionTag(animal.get())).varyBy(HttpHeaders.ACCEPT).body(animal.get());
     }
 
     @DeleteMapping("/{id}")
-    public void deleteById(@PathVariable Long id) {
-        animalService.deleteById(id);
+    public ResponseEntity<?> deleteById(@PathVariable Long id) {
+        try {
+            animalService.deleteById(id);
+            return ResponseEntity.ok().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<?> deleteAll(@RequestBody BulkDeleteRequest request) {
+        boolean emptyIds = request.getIds() != null && request.getIds().isEmpty();
+        if (request.criteriaCount() != 1 || emptyIds || Boolean.TRUE.equals(request.getWithoutAnimals())) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(animalService.deleteAll(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // The representation embeds the owner and vet, so their versions are part of the tag.
+    private static String versionTag(Animal animal) {
+        return ETags.forVersions(animal.getVersion(),
+                animal.getOwner() == null ? null : animal.getOwner().getVersion(),
+                animal.getVet() == null ? null : animal.getVet().getVersion());
     }
 }
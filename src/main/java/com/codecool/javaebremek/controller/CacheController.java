@@ -0,0 +1,36 @@
+package com.codecool.javaebremek.controller;
+
+import com.codecool.javaebremek.cache.CacheStatistics;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/caches")
+public class CacheController {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @GetMapping
+    public List<CacheStatistics> findAll() {
+        return cacheManager.getCacheNames().stream()
+                .sorted()
+                .map(cacheManager::getCache)
+                .filter(Objects::nonNull)
+                .filter(CaffeineCache.class::isInstance)
+                .map(cache -> {
+                    Cache<Object, Object> nativeCache = ((CaffeineCache) cache).getNativeCache();
+                    return CacheStatistics.of(cache.getName(), nativeCache.estimatedSize(), nativeCache.stats());
+                })
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,58 @@
+package com.codecool.javaebremek.controller;
+
+import com.codecool.javaebremek.changes.ChangeFeed;
+import com.codecool.javaebremek.model.ChangeEvent;
+import com.codecool.javaebremek.service.ChangeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/changes")
+public class ChangeController {
+
+    public static final String LAST_SEQUENCE_HEADER = "X-Last-Sequence";
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    @Autowired
+    private ChangeService changeService;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @GetMapping
+    public ResponseEntity<?> findSince(@RequestParam(defaultValue = "0") long since,
+                                       @RequestParam(required = false) Integer limit) {
+        List<ChangeEvent> events;
+        try {
+            events = changeService.findSince(since, limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        long last = events.isEmpty() ? since : events.get(events.size() - 1).getSequence();
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("since", last)
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(LAST_SEQUENCE_HEADER, String.valueOf(last))
+                .header(HttpHeaders.LINK, String.format("<%s>; rel=\"next\"", next))
+                .body(events);
+    }
+
+    // A reconnecting EventSource sends Last-Event-ID, which wins over the since parameter it was opened with.
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribe(@RequestParam(defaultValue = "0") long since,
+                                                @RequestHeader(value = LAST_EVENT_ID, required = false) Long lastEventId) {
+        try {
+            return ResponseEntity.ok(changeFeed.subscribe(lastEventId != null ? lastEventId : since));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
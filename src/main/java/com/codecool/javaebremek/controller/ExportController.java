@@ -0,0 +1,46 @@
+package com.codecool.javaebremek.controller;
+
+import com.codecool.javaebremek.export.ExportFormat;
+import com.codecool.javaebremek.export.Exporter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/export")
+public class ExportController {
+
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
+    @Autowired
+    private Exporter exporter;
+
+    @GetMapping("/{entity}")
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable String entity,
+                                                        @RequestParam(defaultValue = "ndjson") String format,
+                                                        @RequestParam(defaultValue = "true") boolean gzip) {
+        if (!exporter.supports(entity)) {
+            return ResponseEntity.notFound().build();
+        }
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.parse(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        String fileName = exportFormat.fileName(entity, gzip);
+        StreamingResponseBody body = out -> exporter.export(entity, exportFormat, gzip, out);
+        return ResponseEntity.ok()
+                .contentType(gzip ? GZIP : exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+}
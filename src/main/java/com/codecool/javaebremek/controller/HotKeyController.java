@@ -0,0 +1,44 @@
+package com.codecool.javaebremek.controller;
+
+import com.codecool.javaebremek.hotkeys.HotKey;
+import com.codecool.javaebremek.hotkeys.HotKeyTracker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/hot-keys")
+public class HotKeyController {
+
+    @Autowired
+    private HotKeyTracker hotKeyTracker;
+
+    @GetMapping
+    public ResponseEntity<?> findAll(@RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        Map<String, List<HotKey>> result = new LinkedHashMap<>();
+        HotKeyTracker.ENTITIES.forEach(entity -> result.put(entity, hotKeyTracker.top(entity, limit)));
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("/{entity}")
+    public ResponseEntity<?> findByEntity(@PathVariable String entity, @RequestParam(defaultValue = "10") int limit) {
+        if (!hotKeyTracker.tracks(entity)) {
+            return ResponseEntity.notFound().build();
+        }
+        if (limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(hotKeyTracker.top(entity, limit));
+    }
+}
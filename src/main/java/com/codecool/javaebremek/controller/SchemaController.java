@@ -0,0 +1,35 @@
+package com.codecool.javaebremek.controller;
+
+import com.codecool.javaebremek.wireformat.ProtobufCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Set;
+
+// The .proto schemas behind application/x-protobuf, generated from the model classes so clients can run protoc on them.
+@RestController
+@RequestMapping("/schemas")
+public class SchemaController {
+
+    @Autowired
+    private ProtobufCodec protobufCodec;
+
+    @GetMapping
+    public Set<String> findAll() {
+        return ProtobufCodec.TYPES.keySet();
+    }
+
+    @GetMapping(path = "/{entity}", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> findByEntity(@PathVariable String entity) {
+        Class<?> type = ProtobufCodec.TYPES.get(entity);
+        if (type == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(protobufCodec.proto(type));
+    }
+}
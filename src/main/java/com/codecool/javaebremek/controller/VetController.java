@@ -1,15 +1,33 @@
 package com.codecool.javaebremek.controller;
 
-import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.batch.BatchInserter;
+import com.codecool.javaebremek.conditional.ETags;
+import com.codecool.javaebremek.model.AnimalCount;
+import com.codecool.javaebremek.model.AnimalSummary;
+import com.codecool.javaebremek.model.BulkDeleteRequest;
+import com.codecool.javaebremek.model.DependentPolicy;
+import com.codecool.javaebremek.model.LookupRequest;
 import com.codecool.javaebremek.model.Vet;
+import com.codecool.javaebremek.patch.MergePatch;
+import com.codecool.javaebremek.patch.PatchResult;
 import com.codecool.javaebremek.service.VetService;
+import com.codecool.javaebremek.streaming.JsonStreamer;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/vets")
@@ -18,9 +36,69 @@ public class VetController {
     @Autowired
     private VetService vetService;
 
-    @GetMapping
-    public ResponseEntity<?> findAll() {
-        return ResponseEntity.ok(vetService.findAll());
+    @Autowired
+    private BatchInserter batchInserter;
+
+    @Autowired
+    private JsonStreamer jsonStreamer;
+
+    @GetMapping(params = "!ids")
+    public ResponseEntity<List<Vet>> findAll(@RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) Integer size) {
+        try {
+            return vetService.findAll(cursor, size).toResponse(vet -> ETags.fingerprint(vet.getId(), vet.getVersion()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> findAllById(@RequestParam List<Long> ids,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer size) {
+        return cursor == null && size == null ? lookup(new LookupRequest(ids)) : ResponseEntity.badRequest().build();
+    }
+
+    // The POST form takes id lists too long for a query string.
+    @PostMapping("/lookup")
+    public ResponseEntity<?> lookup(@RequestBody LookupRequest request) {
+        try {
+            return ResponseEntity.ok(vetService.findAllById(request.getIds()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return jsonStreamer.jsonArray(vetService::streamAll);
+    }
+
+    @GetMapping(path = "/stream", produces = BatchInserter.NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllAsNdjson() {
+        return jsonStreamer.ndjson(vetService::streamAll);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<List<AnimalCount>> findAnimalCounts(@RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Integer size) {
+        try {
+            return vetService.findAnimalCounts(cursor, size).toResponse();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<Vet>> search(@RequestParam String q, @RequestParam(required = false) Integer limit) {
+        if (q.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(vetService.search(q, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @PostMapping
@@ -31,31 +109,111 @@ public class VetController {
         return ResponseEntity.ok(vetService.add(vet));
     }
 
+    @PostMapping(path = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, BatchInserter.NDJSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> addBatch(InputStream body) {
+        return batchInserter.insert(body, Vet.class, vetService::addAll, Vet::getId);
+    }
+
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateById(@PathVariable Long id, @RequestBody @Valid Vet vet, BindingResult bindingResult) {
+    public ResponseEntity<?> updateById(@PathVariable Long id, @RequestBody @Valid Vet vet, BindingResult bindingResult,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest().build();
         }
+        if (ifMatch != null && !ETags.ANY.equals(ifMatch.trim())) {
+            Long expectedVersion = ETags.expectedVersion(ifMatch);
+            if (expectedVersion == null) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+            }
+            vet.setVersion(expectedVersion);
+        }
         try {
             Vet result = vetService.updateById(id, vet);
             return ResponseEntity.ok(result);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(ifMatch == null ? HttpStatus.CONFLICT : HttpStatus.PRECONDITION_FAILED).build();
         } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
+            return ifMatch == null ? ResponseEntity.notFound().build() : ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+    }
+
+    @PatchMapping(path = "/{id}", consumes = {MergePatch.MERGE_PATCH_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> patchById(@PathVariable Long id, @RequestBody JsonNode patch,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = null;
+        if (ifMatch != null && !ETags.ANY.equals(ifMatch.trim())) {
+            expectedVersion = ETags.expectedVersion(ifMatch);
+            if (expectedVersion == null) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+            }
+        }
+        try {
+            PatchResult<Vet> result = vetService.patchById(id, patch, expectedVersion);
+            return ResponseEntity.ok()
+                    .eTag(ETags.forVersions(result.getEntity().getVersion()))
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .header(MergePatch.CHANGED_HEADER, String.valueOf(result.isChanged()))
+                    .body(result.getEntity());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(ifMatch == null ? HttpStatus.CONFLICT : HttpStatus.PRECONDITION_FAILED).build();
+        } catch (RuntimeException e) {
+            return ifMatch == null ? ResponseEntity.notFound().build() : ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
         }
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<?> findById(@PathVariable Long id) {
-        return ResponseEntity.ok(vetService.findById(id));
+        Optional<Vet> vet = vetService.findById(id);
+        if (vet.isEmpty()) {
+            return ResponseEntity.ok(vet);
+        }
+        return ResponseEntity.ok().eTag(ETags.forVersions(vet.get().getVersion())).varyBy(HttpHeaders.ACCEPT).body(vet.get());
     }
 
     @DeleteMapping("/{id}")
-    public void deleteById(@PathVariable Long id) {
-        vetService.deleteById(id);
+    public ResponseEntity<?> deleteById(@PathVariable Long id, @RequestParam(required = false) String dependents) {
+        try {
+            if (dependents == null) {
+                vetService.deleteById(id);
+            } else {
+                vetService.deleteById(id, DependentPolicy.parse(dependents));
+            }
+            return ResponseEntity.ok().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<?> deleteAll(@RequestBody BulkDeleteRequest request, @RequestParam(required = false) String dependents) {
+        boolean emptyIds = request.getIds() != null && request.getIds().isEmpty();
+        if (request.criteriaCount() != 1 || emptyIds || request.getOwnerId() != null || request.getVetId() != null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            DependentPolicy policy = dependents == null ? null : DependentPolicy.parse(dependents);
+            return ResponseEntity.ok(vetService.deleteAll(request, policy));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
     }
 
     @GetMapping("/{vetId}/animals")
-    public List<Animal> getAnimalsByVetsId(@PathVariable Long vetId) {
-        return vetService.getAnimalsByVetsId(vetId);
+    public ResponseEntity<List<AnimalSummary>> getAnimalsByVetsId(@PathVariable Long vetId,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestParam(required = false) Integer size) {
+        try {
+            return vetService.getAnimalsByVetsId(vetId, cursor, size).toResponse(animal -> ETags.fingerprint(animal.getId(), animal.getVersion()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 }
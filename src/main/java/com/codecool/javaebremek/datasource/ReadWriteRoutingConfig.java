@@ -0,0 +1,72 @@
+package com.codecool.javaebremek.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+// Only active when a replica is configured; otherwise Spring Boot's single pooled DataSource is used unchanged.
+@Configuration
+@ConditionalOnProperty("remek.datasource.replica.url")
+public class ReadWriteRoutingConfig implements WebMvcConfigurer {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("remek.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${remek.datasource.replica.url}") String url,
+                                              @Value("${remek.datasource.replica.username:}") String username,
+                                              @Value("${remek.datasource.replica.password:}") String password,
+                                              @Value("${remek.datasource.replica.migrate:false}") boolean migrate) {
+        HikariDataSource replica = DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(url).username(username).password(password).build();
+        // Real replicas receive the schema through replication; a local stand-in database has to be migrated itself.
+        if (migrate) {
+            Flyway.configure().dataSource(replica).load().migrate();
+        }
+        return replica;
+    }
+
+    // The lazy proxy delays fetching a connection until the first statement, when the transaction's read-only flag is known.
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource();
+        routing.setTargetDataSources(Map.of(
+                ReadWriteRoutingDataSource.Route.PRIMARY, primary,
+                ReadWriteRoutingDataSource.Route.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            @Value("${remek.datasource.read-your-writes-seconds:5}") long windowSeconds) {
+        return new FilterRegistrationBean<>(new ReadYourWritesFilter(windowSeconds));
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new ReadYourWritesCallableInterceptor());
+    }
+}
@@ -0,0 +1,30 @@
+package com.codecool.javaebremek.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Read-only transactions go to the replica unless the client has just written; everything else goes to the primary.
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return currentRoute();
+    }
+
+    public static Route currentRoute() {
+        boolean readOnly = TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        return readOnly && !ReadYourWritesFilter.isPinnedToPrimary() ? Route.REPLICA : Route.PRIMARY;
+    }
+
+    // Where a read-only repository call made from here ends up: it joins an outer read-write transaction if there is one.
+    public static Route readRoute() {
+        boolean writing = TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        return writing || ReadYourWritesFilter.isPinnedToPrimary() ? Route.PRIMARY : Route.REPLICA;
+    }
+}
@@ -0,0 +1,29 @@
+package com.codecool.javaebremek.datasource;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+import java.util.concurrent.Callable;
+
+// Streamed bodies are written on an MVC async thread once the filter has already cleared the request thread's pin.
+public class ReadYourWritesCallableInterceptor implements CallableProcessingInterceptor {
+
+    private static final String PINNED_UNTIL = ReadYourWritesCallableInterceptor.class.getName() + ".pinnedUntil";
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        request.setAttribute(PINNED_UNTIL, ReadYourWritesFilter.pinnedUntil(), RequestAttributes.SCOPE_REQUEST);
+    }
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        Object pinnedUntil = request.getAttribute(PINNED_UNTIL, RequestAttributes.SCOPE_REQUEST);
+        ReadYourWritesFilter.pin(pinnedUntil == null ? 0 : (Long) pinnedUntil);
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        ReadYourWritesFilter.unpin();
+    }
+}
@@ -0,0 +1,91 @@
+package com.codecool.javaebremek.datasource;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.function.Supplier;
+
+// A write hands the client a short-lived cookie; while it is valid, that client's reads skip the possibly lagging replica.
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String COOKIE = "remek-primary-until";
+
+    // The pin is kept as a deadline, so work that outlives the request, such as an SSE subscription, lets it expire.
+    private static final ThreadLocal<Long> PINNED_UNTIL = ThreadLocal.withInitial(() -> 0L);
+
+    private final long windowMillis;
+
+    public ReadYourWritesFilter(long windowSeconds) {
+        this.windowMillis = windowSeconds * 1000;
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PINNED_UNTIL.get() > System.currentTimeMillis();
+    }
+
+    public static long pinnedUntil() {
+        return PINNED_UNTIL.get();
+    }
+
+    // Work that continues on another thread, e.g. a streamed body or a change feed read, takes the request's pin along.
+    public static <T> T withPin(long pinnedUntil, Supplier<T> work) {
+        long previous = PINNED_UNTIL.get();
+        PINNED_UNTIL.set(pinnedUntil);
+        try {
+            return work.get();
+        } finally {
+            PINNED_UNTIL.set(previous);
+        }
+    }
+
+    public static <T> T onPrimary(Supplier<T> work) {
+        return withPin(Long.MAX_VALUE, work);
+    }
+
+    static void pin(long pinnedUntil) {
+        PINNED_UNTIL.set(pinnedUntil);
+    }
+
+    static void unpin() {
+        PINNED_UNTIL.remove();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        boolean write = !HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod());
+        if (write) {
+            Cookie cookie = new Cookie(COOKIE, String.valueOf(now + windowMillis));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, windowMillis / 1000));
+            response.addCookie(cookie);
+        }
+        pin(write ? now + windowMillis : cookieDeadline(request));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            unpin();
+        }
+    }
+
+    private static long cookieDeadline(HttpServletRequest request) {
+        Cookie cookie = WebUtils.getCookie(request, COOKIE);
+        if (cookie == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(cookie.getValue());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
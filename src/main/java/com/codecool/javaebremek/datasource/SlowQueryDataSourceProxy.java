@@ -0,0 +1,34 @@
+package com.codecool.javaebremek.datasource;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+// Wraps each pooled DataSource so every JDBC call is timed; Hikari and its metrics stay reachable through unwrap().
+// Routing and lazy proxies are left alone so a statement is only timed once, by the pool that actually ran it.
+@Component
+public class SlowQueryDataSourceProxy implements BeanPostProcessor {
+
+    @Value("${remek.slow-query.enabled:true}")
+    private boolean enabled;
+
+    @Value("${remek.slow-query.threshold-ms:200}")
+    private long thresholdMillis;
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!enabled || !(bean instanceof DataSource) || bean instanceof ProxyDataSource
+                || bean instanceof DelegatingDataSource || bean instanceof AbstractRoutingDataSource) {
+            return bean;
+        }
+        return ProxyDataSourceBuilder.create(beanName, (DataSource) bean)
+                .listener(new SlowQueryLogger(thresholdMillis))
+                .build();
+    }
+}
@@ -0,0 +1,71 @@
+package com.codecool.javaebremek.datasource;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class SlowQueryLogger implements QueryExecutionListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SlowQueryLogger.class);
+
+    private final long thresholdMillis;
+
+    public SlowQueryLogger(long thresholdMillis) {
+        this.thresholdMillis = thresholdMillis;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (execInfo.getElapsedTime() < thresholdMillis || !LOG.isWarnEnabled()) {
+            return;
+        }
+        for (QueryInfo queryInfo : queryInfoList) {
+            LOG.warn("Slow query ({} ms, {}, on {}) from {}: {} {}", execInfo.getElapsedTime(),
+                    execInfo.isBatch() ? "batch of " + execInfo.getBatchSize() : "single", execInfo.getDataSourceName(),
+                    originatingHandler(), queryInfo.getQuery(), redactedParameters(queryInfo));
+        }
+    }
+
+    // Bind values can hold personal data, so only their positions and types are logged.
+    static String redactedParameters(QueryInfo queryInfo) {
+        List<List<ParameterSetOperation>> parametersList = queryInfo.getParametersList();
+        if (parametersList.isEmpty()) {
+            return "[]";
+        }
+        String first = parametersList.get(0).stream()
+                .map(SlowQueryLogger::redacted)
+                .collect(Collectors.joining(", ", "[", "]"));
+        return parametersList.size() == 1 ? first : first + " x" + parametersList.size();
+    }
+
+    private static String redacted(ParameterSetOperation operation) {
+        Object[] args = operation.getArgs();
+        Object value = args.length > 1 ? args[1] : null;
+        return args[0] + ":" + (value == null ? "null" : value.getClass().getSimpleName());
+    }
+
+    private static String originatingHandler() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Object handler = attributes == null ? null
+                : attributes.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (handler instanceof HandlerMethod) {
+            HandlerMethod handlerMethod = (HandlerMethod) handler;
+            return handlerMethod.getBeanType().getSimpleName() + "#" + handlerMethod.getMethod().getName();
+        }
+        return attributes == null ? "<no request>" : "<unmapped request>";
+    }
+}
@@ -0,0 +1,65 @@
+package com.codecool.javaebremek.execution;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    public static final String REJECTED_METRIC = "remek.http.server.rejected";
+
+    private final Semaphore permits;
+    private final long queueTimeoutMillis;
+    private final String retryAfterSeconds;
+    private final Counter rejected;
+
+    public ConcurrencyLimitFilter(int maxConcurrent, long queueTimeoutMillis, long retryAfterSeconds, MeterRegistry meterRegistry) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException(String.format("Max concurrent requests must be positive, got %d", maxConcurrent));
+        }
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+        this.rejected = Counter.builder(REJECTED_METRIC)
+                .description("Requests turned away with 429 because every database-sized permit was taken")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.codecool.javaebremek.execution;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ExecutionConfig {
+
+    @Value("${remek.execution.mode:platform}")
+    private ExecutionMode mode;
+
+    // Defaults to the Hikari pool size: more concurrent requests than connections only adds waiting threads.
+    @Value("${remek.execution.max-concurrent:${spring.datasource.hikari.maximum-pool-size:10}}")
+    private int maxConcurrent;
+
+    // About the p99 of a saturated but healthy server, so a burst queues instead of being turned away; a short wait
+    // rejects most of the burst, and the retries then cost more than the queueing would have.
+    @Value("${remek.execution.queue-timeout-ms:2000}")
+    private long queueTimeoutMillis;
+
+    @Value("${remek.execution.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(MeterRegistry meterRegistry) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(maxConcurrent, queueTimeoutMillis, retryAfterSeconds, meterRegistry));
+        registration.setEnabled(mode == ExecutionMode.BOUNDED);
+        return registration;
+    }
+}
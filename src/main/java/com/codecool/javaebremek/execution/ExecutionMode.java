@@ -0,0 +1,8 @@
+package com.codecool.javaebremek.execution;
+
+public enum ExecutionMode {
+    // Tomcat's thread pool, requests queue on Hikari when the database is slow.
+    PLATFORM,
+    // Tomcat's thread pool, but only as many requests as the database can serve are let through, the rest get 429.
+    BOUNDED
+}
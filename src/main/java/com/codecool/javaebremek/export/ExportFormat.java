@@ -0,0 +1,36 @@
+package com.codecool.javaebremek.export;
+
+import com.codecool.javaebremek.batch.BatchInserter;
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+public enum ExportFormat {
+
+    CSV("csv", MediaType.parseMediaType("text/csv")),
+    NDJSON("ndjson", BatchInserter.NDJSON);
+
+    private final String extension;
+    private final MediaType mediaType;
+
+    ExportFormat(String extension, MediaType mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String fileName(String entity, boolean gzip) {
+        return entity + "." + extension + (gzip ? ".gz" : "");
+    }
+
+    public static ExportFormat parse(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
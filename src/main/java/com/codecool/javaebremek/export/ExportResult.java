@@ -0,0 +1,20 @@
+package com.codecool.javaebremek.export;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+@AllArgsConstructor
+public class ExportResult {
+
+    private final String entity;
+    private final long rows;
+    private final Duration elapsed;
+
+    public long rowsPerSecond() {
+        long millis = Math.max(1, elapsed.toMillis());
+        return rows * 1000 / millis;
+    }
+}
@@ -0,0 +1,73 @@
+package com.codecool.javaebremek.export;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Command-line dump of whole tables to files, then exit:
+// java -jar app.jar --spring.main.web-application-type=none --remek.export.dir=/tmp/dump
+//      [--remek.export.entities=animals,owners,vets] [--remek.export.format=csv|ndjson] [--remek.export.gzip=true]
+@Component
+@ConditionalOnProperty("remek.export.dir")
+public class ExportRunner implements ApplicationRunner {
+
+    @Autowired
+    private Exporter exporter;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Value("${remek.export.dir}")
+    private Path dir;
+
+    @Value("${remek.export.entities:animals,owners,vets}")
+    private List<String> entities;
+
+    @Value("${remek.export.format:csv}")
+    private String format;
+
+    @Value("${remek.export.gzip:true}")
+    private boolean gzip;
+
+    @Value("${remek.export.exit:true}")
+    private boolean exit;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        List<ExportResult> results = export();
+        if (exit) {
+            System.exit(SpringApplication.exit(applicationContext, () -> results.isEmpty() ? 1 : 0));
+        }
+    }
+
+    public List<ExportResult> export() throws IOException {
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        for (String entity : entities) {
+            if (!exporter.supports(entity)) {
+                throw new IllegalArgumentException(String.format("Unknown export entity: %s", entity));
+            }
+        }
+        Files.createDirectories(dir);
+        List<ExportResult> results = new ArrayList<>();
+        for (String entity : entities) {
+            Path file = dir.resolve(exportFormat.fileName(entity, gzip));
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                results.add(exporter.export(entity, exportFormat, gzip, out));
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,225 @@
+package com.codecool.javaebremek.export;
+
+import com.codecool.javaebremek.model.AnimalSummary;
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.model.Vet;
+import com.codecool.javaebremek.paging.KeysetCursor;
+import com.codecool.javaebremek.repository.AnimalRepository;
+import com.codecool.javaebremek.repository.OwnerRepository;
+import com.codecool.javaebremek.repository.VetRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+// Reads a table in keyset chunks, one short read-only transaction each, and writes every chunk before
+// fetching the next, so memory stays bounded by the chunk size whatever the table size.
+@Component
+public class Exporter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Exporter.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private VetRepository vetRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${remek.export.chunk-size:1000}")
+    private int chunkSize;
+
+    public boolean supports(String entity) {
+        return table(entity) != null;
+    }
+
+    public ExportResult export(String entity, ExportFormat format, boolean gzip, OutputStream out) throws IOException {
+        Table<?> table = table(entity);
+        if (table == null) {
+            throw new IllegalArgumentException(String.format("Unknown export entity: %s", entity));
+        }
+        long started = System.nanoTime();
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        long rows = write(table, format, compressed != null ? compressed : out);
+        if (compressed != null) {
+            compressed.finish();
+        }
+        out.flush();
+        ExportResult result = new ExportResult(entity, rows, Duration.ofNanos(System.nanoTime() - started));
+        LOG.info("Exported {} {} as {}{} in {} ms ({} rows/s)", rows, entity, format.getExtension(), gzip ? ".gz" : "",
+                result.getElapsed().toMillis(), result.rowsPerSecond());
+        meterRegistry.timer("remek.export", "entity", entity, "format", format.getExtension()).record(result.getElapsed());
+        meterRegistry.counter("remek.export.rows", "entity", entity, "format", format.getExtension()).increment(rows);
+        return result;
+    }
+
+    private <T> long write(Table<T> table, ExportFormat format, OutputStream out) throws IOException {
+        RowSink<T> sink = format == ExportFormat.CSV ? new CsvSink<>(table, out) : new NdjsonSink<>(out);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        long rows = 0;
+        long after = KeysetCursor.FIRST;
+        while (true) {
+            long from = after;
+            List<T> chunk = readOnly.execute(status -> table.chunk.apply(from, PageRequest.of(0, chunkSize)));
+            for (T row : chunk) {
+                sink.write(row);
+            }
+            sink.flush();
+            // Under open-in-view all chunks share one EntityManager; clearing it drops the rows just written.
+            entityManager.clear();
+            rows += chunk.size();
+            if (chunk.size() < chunkSize) {
+                return rows;
+            }
+            after = table.idOf.apply(chunk.get(chunk.size() - 1));
+        }
+    }
+
+    private Table<?> table(String entity) {
+        switch (entity) {
+            case "animals":
+                return new Table<AnimalSummary>(List.of("id", "name", "ownerId", "vetId", "version"),
+                        animalRepository::findSummariesByIdGreaterThan, AnimalSummary::getId,
+                        animal -> new Object[]{animal.getId(), animal.getName(), animal.getOwnerId(), animal.getVetId(), animal.getVersion()});
+            case "owners":
+                return new Table<Owner>(List.of("id", "name", "version"),
+                        ownerRepository::findByIdGreaterThanOrderByIdAsc, Owner::getId,
+                        owner -> new Object[]{owner.getId(), owner.getName(), owner.getVersion()});
+            case "vets":
+                return new Table<Vet>(List.of("id", "name", "version"),
+                        vetRepository::findByIdGreaterThanOrderByIdAsc, Vet::getId,
+                        vet -> new Object[]{vet.getId(), vet.getName(), vet.getVersion()});
+            default:
+                return null;
+        }
+    }
+
+    private static class Table<T> {
+
+        private final List<String> columns;
+        private final BiFunction<Long, Pageable, List<T>> chunk;
+        private final Function<T, Long> idOf;
+        private final Function<T, Object[]> values;
+
+        private Table(List<String> columns, BiFunction<Long, Pageable, List<T>> chunk, Function<T, Long> idOf,
+                      Function<T, Object[]> values) {
+            this.columns = columns;
+            this.chunk = chunk;
+            this.idOf = idOf;
+            this.values = values;
+        }
+    }
+
+    private interface RowSink<T> {
+
+        void write(T row) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    // RFC 4180: fields holding a separator, quote or line break are quoted, with quotes doubled.
+    private static class CsvSink<T> implements RowSink<T> {
+
+        private final Table<T> table;
+        private final Writer writer;
+
+        private CsvSink(Table<T> table, OutputStream out) throws IOException {
+            this.table = table;
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            writeLine(table.columns.toArray());
+        }
+
+        @Override
+        public void write(T row) throws IOException {
+            writeLine(table.values.apply(row));
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        private void writeLine(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (values[i] != null) {
+                    writer.write(escape(values[i].toString()));
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private class NdjsonSink<T> implements RowSink<T> {
+
+        private final JsonGenerator generator;
+        private final ObjectWriter writer;
+
+        private NdjsonSink(OutputStream out) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .setRootValueSeparator(null);
+            this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+
+        @Override
+        public void write(T row) throws IOException {
+            writer.writeValue(generator, row);
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+    }
+}
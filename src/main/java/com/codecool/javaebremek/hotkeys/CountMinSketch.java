@@ -0,0 +1,65 @@
+package com.codecool.javaebremek.hotkeys;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Approximate per-key counts in fixed memory: each key bumps one counter in each of DEPTH rows and its estimate is
+// the smallest of them. Collisions can only inflate an estimate, never lower it.
+public class CountMinSketch {
+
+    private static final long[] SEEDS = {0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L};
+    private static final int DEPTH = SEEDS.length;
+
+    private final int width;
+    private final AtomicLongArray counters;
+
+    // The width is rounded up to a power of two so a row index is a mask rather than a division.
+    public CountMinSketch(int width) {
+        if (width < 1) {
+            throw new IllegalArgumentException(String.format("Sketch width must be positive, got %d", width));
+        }
+        this.width = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.counters = new AtomicLongArray(DEPTH * this.width);
+    }
+
+    public long add(long key) {
+        return add(key, 1);
+    }
+
+    // Returns the key's estimate after the increment.
+    public long add(long key, long count) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.addAndGet(index(row, key), count));
+        }
+        return estimate;
+    }
+
+    public long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, key)));
+        }
+        return estimate;
+    }
+
+    // Halving every counter ages old reads out, so the estimates follow what is hot now.
+    public void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.updateAndGet(i, count -> count >>> 1);
+        }
+    }
+
+    private int index(int row, long key) {
+        return row * width + (int) (mix(key ^ SEEDS[row]) & (width - 1));
+    }
+
+    // MurmurHash3 finalizer; sequential ids spread over the whole row.
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,73 @@
+package com.codecool.javaebremek.hotkeys;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// The k keys with the highest sketch estimates. A read of a key already in the top set, or of one estimated below
+// the smallest of them, takes no lock; only a key about to enter the set does.
+public class HeavyHitters {
+
+    private final CountMinSketch sketch;
+    private final int k;
+    private final Map<Long, Long> top = new ConcurrentHashMap<>();
+    private volatile long floor;
+
+    public HeavyHitters(int k, int sketchWidth) {
+        this.sketch = new CountMinSketch(sketchWidth);
+        this.k = k;
+    }
+
+    public void record(long id) {
+        offer(id, sketch.add(id));
+    }
+
+    // Restores a previously saved estimate, e.g. from the last snapshot before a restart.
+    public void seed(long id, long estimate) {
+        offer(id, sketch.add(id, estimate));
+    }
+
+    private void offer(long id, long estimate) {
+        if (top.computeIfPresent(id, (key, previous) -> Math.max(previous, estimate)) != null) {
+            return;
+        }
+        if (estimate <= floor) {
+            return;
+        }
+        synchronized (this) {
+            // Another reader of the same key may have let it in since the unlocked check; evicting for it again
+            // would push out a second key.
+            if (top.computeIfPresent(id, (key, previous) -> Math.max(previous, estimate)) != null) {
+                return;
+            }
+            if (top.size() >= k) {
+                Map.Entry<Long, Long> coldest = coldest();
+                if (estimate <= coldest.getValue()) {
+                    return;
+                }
+                top.remove(coldest.getKey());
+            }
+            top.put(id, estimate);
+            floor = top.size() < k ? 0 : coldest().getValue();
+        }
+    }
+
+    public synchronized void decay() {
+        sketch.halve();
+        top.replaceAll((id, estimate) -> estimate >>> 1);
+        floor = floor >>> 1;
+    }
+
+    public List<HotKey> top(int limit) {
+        return top.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(entry -> new HotKey(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    private Map.Entry<Long, Long> coldest() {
+        return top.entrySet().stream().min(Map.Entry.comparingByValue()).orElseThrow();
+    }
+}
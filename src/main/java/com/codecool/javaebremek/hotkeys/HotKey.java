@@ -0,0 +1,14 @@
+package com.codecool.javaebremek.hotkeys;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotKey {
+
+    private long id;
+    private long estimate;
+}
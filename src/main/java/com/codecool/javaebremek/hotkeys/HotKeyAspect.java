@@ -0,0 +1,34 @@
+package com.codecool.javaebremek.hotkeys;
+
+import com.codecool.javaebremek.model.EntityNames;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+// Ordered ahead of the cache interceptor, so reads answered from the owner and vet caches are counted too. Not
+// HIGHEST_PRECEDENCE: that would run before ExposeInvocationInterceptor, which argument binding needs.
+@Aspect
+@Component
+@Order(0)
+public class HotKeyAspect {
+
+    @Autowired
+    private HotKeyTracker hotKeyTracker;
+
+    @Before("execution(* com.codecool.javaebremek.service.AnimalService.findById(Long)) && args(id)")
+    public void animalRead(Long id) {
+        hotKeyTracker.record(EntityNames.ANIMALS, id);
+    }
+
+    @Before("execution(* com.codecool.javaebremek.service.OwnerService.findById(Long)) && args(id)")
+    public void ownerRead(Long id) {
+        hotKeyTracker.record(EntityNames.OWNERS, id);
+    }
+
+    @Before("execution(* com.codecool.javaebremek.service.VetService.findById(Long)) && args(id)")
+    public void vetRead(Long id) {
+        hotKeyTracker.record(EntityNames.VETS, id);
+    }
+}
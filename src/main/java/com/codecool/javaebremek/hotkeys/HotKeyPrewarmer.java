@@ -0,0 +1,111 @@
+package com.codecool.javaebremek.hotkeys;
+
+import com.codecool.javaebremek.cache.CacheConfig;
+import com.codecool.javaebremek.datasource.ReadYourWritesFilter;
+import com.codecool.javaebremek.lookup.IdLookup;
+import com.codecool.javaebremek.metrics.EntityTags;
+import com.codecool.javaebremek.model.EntityNames;
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.model.Vet;
+import com.codecool.javaebremek.repository.OwnerRepository;
+import com.codecool.javaebremek.repository.VetRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Loads the hottest owners and vets into their caches in one IN-list query per chunk: on startup from the last
+// snapshot, and whenever most of the current hot keys have dropped out of the cache at once. Animals have no
+// entity cache, so they are tracked but not prewarmed.
+@Component
+public class HotKeyPrewarmer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HotKeyPrewarmer.class);
+
+    @Autowired
+    private HotKeyTracker hotKeyTracker;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private VetRepository vetRepository;
+
+    @Autowired
+    private IdLookup idLookup;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Share of the hot keys that must be missing from the cache before they are reloaded in bulk.
+    @Value("${remek.hotkeys.rewarm-threshold:0.5}")
+    private double rewarmThreshold;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prewarm() {
+        Map<String, List<HotKey>> saved = hotKeyTracker.restore();
+        warmOwners(idsOf(saved.get(EntityNames.OWNERS)));
+        warmVets(idsOf(saved.get(EntityNames.VETS)));
+    }
+
+    // Single misses refill through findById as usual; a bulk reload only pays off after an eviction storm,
+    // e.g. a bulk delete or many entries expiring together.
+    @Scheduled(initialDelayString = "${remek.hotkeys.rewarm-check-ms:10000}",
+            fixedDelayString = "${remek.hotkeys.rewarm-check-ms:10000}")
+    public void rewarmAfterEvictions() {
+        warmOwners(missingHotKeys(EntityNames.OWNERS, CacheConfig.OWNERS));
+        warmVets(missingHotKeys(EntityNames.VETS, CacheConfig.VETS));
+    }
+
+    // Checks the map view, which unlike a cache read does not count towards the hit and miss statistics.
+    private List<Long> missingHotKeys(String entity, String cacheName) {
+        List<Long> hot = idsOf(hotKeyTracker.top(entity));
+        Map<Object, Object> cached = cache(cacheName).getNativeCache().asMap();
+        List<Long> missing = hot.stream().filter(id -> !cached.containsKey(id)).collect(Collectors.toList());
+        return missing.size() >= rewarmThreshold * hot.size() ? missing : List.of();
+    }
+
+    private void warmOwners(List<Long> ids) {
+        warm(CacheConfig.OWNERS, ids, ownerRepository::findAllById, Owner::getId);
+    }
+
+    private void warmVets(List<Long> ids) {
+        warm(CacheConfig.VETS, ids, vetRepository::findAllById, Vet::getId);
+    }
+
+    // putIfAbsent keeps whatever findById cached in the meantime, which is at least as fresh as this load.
+    private <T> void warm(String cacheName, List<Long> ids, Function<List<Long>, List<T>> load, Function<T, Long> idOf) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        CaffeineCache cache = cache(cacheName);
+        // Like findById's misses, the reload reads the primary: replica rows must not end up in the cache.
+        List<T> rows = ReadYourWritesFilter.onPrimary(() -> idLookup.find(ids, load, idOf).getItems());
+        rows.forEach(row -> cache.putIfAbsent(idOf.apply(row), row));
+        meterRegistry.counter("remek.hotkeys.prewarmed", EntityTags.NAME, cacheName).increment(rows.size());
+        LOG.info("Prewarmed {} of {} hot {}", rows.size(), ids.size(), cacheName);
+    }
+
+    private CaffeineCache cache(String cacheName) {
+        return (CaffeineCache) cacheManager.getCache(cacheName);
+    }
+
+    private static List<Long> idsOf(List<HotKey> keys) {
+        return keys.stream().map(HotKey::getId).collect(Collectors.toList());
+    }
+}
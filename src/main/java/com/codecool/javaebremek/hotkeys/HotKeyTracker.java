@@ -0,0 +1,93 @@
+package com.codecool.javaebremek.hotkeys;
+
+import com.codecool.javaebremek.model.EntityNames;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Counts findById reads per entity in memory. The top keys are saved to hot_key now and then, so a restarted
+// instance knows what to prewarm and keeps counting from where the last one stopped.
+@Component
+public class HotKeyTracker {
+
+    public static final List<String> ENTITIES = List.of(EntityNames.ANIMALS, EntityNames.OWNERS, EntityNames.VETS);
+
+    private static final String INSERT = "insert into hot_key (entity, entity_id, estimate) values (?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${remek.hotkeys.top-k:100}")
+    private int topK;
+
+    @Value("${remek.hotkeys.sketch-width:4096}")
+    private int sketchWidth;
+
+    private final Map<String, HeavyHitters> hitters = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        ENTITIES.forEach(entity -> hitters.put(entity, new HeavyHitters(topK, sketchWidth)));
+    }
+
+    public boolean tracks(String entity) {
+        return hitters.containsKey(entity);
+    }
+
+    public void record(String entity, Long id) {
+        if (id != null) {
+            hitters.get(entity).record(id);
+        }
+    }
+
+    public List<HotKey> top(String entity, int limit) {
+        return hitters.get(entity).top(Math.min(limit, topK));
+    }
+
+    public List<HotKey> top(String entity) {
+        return top(entity, topK);
+    }
+
+    @Scheduled(initialDelayString = "${remek.hotkeys.decay-interval-ms:600000}",
+            fixedDelayString = "${remek.hotkeys.decay-interval-ms:600000}")
+    public void decay() {
+        hitters.values().forEach(HeavyHitters::decay);
+    }
+
+    @Scheduled(initialDelayString = "${remek.hotkeys.snapshot-interval-ms:60000}",
+            fixedDelayString = "${remek.hotkeys.snapshot-interval-ms:60000}")
+    @Transactional
+    public void snapshot() {
+        jdbcTemplate.update("delete from hot_key");
+        for (String entity : ENTITIES) {
+            List<HotKey> keys = top(entity);
+            jdbcTemplate.batchUpdate(INSERT, keys, keys.size(), (statement, key) -> {
+                statement.setString(1, entity);
+                statement.setLong(2, key.getId());
+                statement.setLong(3, key.getEstimate());
+            });
+        }
+    }
+
+    // Seeds the counters from the last snapshot and returns it, hottest first.
+    @Transactional(readOnly = true)
+    public Map<String, List<HotKey>> restore() {
+        Map<String, List<HotKey>> saved = new LinkedHashMap<>();
+        for (String entity : ENTITIES) {
+            List<HotKey> keys = jdbcTemplate.query(
+                    "select entity_id, estimate from hot_key where entity = ? order by estimate desc, entity_id",
+                    (row, index) -> new HotKey(row.getLong(1), row.getLong(2)), entity);
+            keys.forEach(key -> hitters.get(entity).seed(key.getId(), key.getEstimate()));
+            saved.put(entity, keys);
+        }
+        return saved;
+    }
+}
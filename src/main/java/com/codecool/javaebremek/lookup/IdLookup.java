@@ -0,0 +1,72 @@
+package com.codecool.javaebremek.lookup;
+
+import com.codecool.javaebremek.model.LookupResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+@Component
+public class IdLookup {
+
+    // Stays well below the bind-parameter limits of the usual drivers, e.g. 1000 list items on Oracle.
+    @Value("${remek.lookup.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${remek.lookup.max-ids:5000}")
+    private int maxIds;
+
+    // One IN-list query per chunk of distinct ids; the result keeps the first-seen request order.
+    public <T> LookupResult<T> find(List<Long> ids, Function<List<Long>, List<T>> loadChunk, Function<T, Long> idOf) {
+        List<Long> distinct = distinct(ids);
+        List<T> rows = selectInChunks(distinct, loadChunk);
+        Map<Long, T> byId = rows.stream().collect(Collectors.toMap(idOf, Function.identity()));
+        List<T> items = new ArrayList<>(byId.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : distinct) {
+            T row = byId.get(id);
+            if (row == null) {
+                missing.add(id);
+            } else {
+                items.add(row);
+            }
+        }
+        return new LookupResult<>(items, missing);
+    }
+
+    // Client-supplied id lists go through here before any IN-list statement, so they share one cap.
+    public List<Long> distinct(List<Long> ids) {
+        if (ids == null || ids.isEmpty() || ids.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Expected a non-empty list of ids");
+        }
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinct.size() > maxIds) {
+            throw new IllegalArgumentException(String.format("At most %d ids can be sent at once, got %d", maxIds, distinct.size()));
+        }
+        return distinct;
+    }
+
+    public <T> List<T> selectInChunks(List<Long> ids, Function<List<Long>, List<T>> query) {
+        List<T> rows = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            rows.addAll(query.apply(ids.subList(from, Math.min(from + chunkSize, ids.size()))));
+        }
+        return rows;
+    }
+
+    // For set-based updates and deletes; returns the total row count.
+    public int updateInChunks(List<Long> ids, ToIntFunction<List<Long>> statement) {
+        int updated = 0;
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            updated += statement.applyAsInt(ids.subList(from, Math.min(from + chunkSize, ids.size())));
+        }
+        return updated;
+    }
+}
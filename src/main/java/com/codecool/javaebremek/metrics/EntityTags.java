@@ -0,0 +1,27 @@
+package com.codecool.javaebremek.metrics;
+
+public final class EntityTags {
+
+    public static final String NAME = "entity";
+    public static final String NONE = "none";
+
+    private EntityTags() {
+    }
+
+    // "/animals/{id}" -> "animals", so HTTP and repository metrics share the same entity label.
+    public static String fromPath(String path) {
+        if (path == null) {
+            return NONE;
+        }
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                return segment;
+            }
+        }
+        return NONE;
+    }
+
+    public static String fromDomainType(Class<?> domainType) {
+        return domainType.getSimpleName().toLowerCase() + "s";
+    }
+}
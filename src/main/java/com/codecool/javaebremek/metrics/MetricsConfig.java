@@ -0,0 +1,52 @@
+package com.codecool.javaebremek.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.data.DefaultRepositoryTagsProvider;
+import org.springframework.boot.actuate.metrics.data.RepositoryTagsProvider;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.AbstractRepositoryMetadata;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public WebMvcTagsContributor entityWebMvcTagsContributor() {
+        return new WebMvcTagsContributor() {
+            @Override
+            public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler, Throwable exception) {
+                return entityTag(request);
+            }
+
+            @Override
+            public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+                return entityTag(request);
+            }
+
+            private Tags entityTag(HttpServletRequest request) {
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                return Tags.of(EntityTags.NAME, EntityTags.fromPath(pattern == null ? null : pattern.toString()));
+            }
+        };
+    }
+
+    @Bean
+    public RepositoryTagsProvider entityRepositoryTagsProvider() {
+        DefaultRepositoryTagsProvider defaults = new DefaultRepositoryTagsProvider();
+        return invocation -> Tags.of(defaults.repositoryTags(invocation)).and(EntityTags.NAME,
+                EntityTags.fromDomainType(AbstractRepositoryMetadata.getMetadata(invocation.getRepositoryInterface()).getDomainType()));
+    }
+
+    @Bean
+    public FilterRegistrationBean<StatementMetricsFilter> statementMetricsFilter(MeterRegistry meterRegistry) {
+        return new FilterRegistrationBean<>(new StatementMetricsFilter(meterRegistry));
+    }
+}
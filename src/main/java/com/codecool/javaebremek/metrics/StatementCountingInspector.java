@@ -0,0 +1,22 @@
+package com.codecool.javaebremek.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+public class StatementCountingInspector implements StatementInspector {
+
+    private static final ThreadLocal<int[]> STATEMENTS = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get()[0]++;
+        return sql;
+    }
+
+    public static void resetCurrentThread() {
+        STATEMENTS.get()[0] = 0;
+    }
+
+    public static int currentThreadCount() {
+        return STATEMENTS.get()[0];
+    }
+}
@@ -0,0 +1,43 @@
+package com.codecool.javaebremek.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+public class StatementMetricsFilter extends OncePerRequestFilter {
+
+    public static final String METRIC = "remek.http.server.statements";
+
+    private final MeterRegistry meterRegistry;
+
+    public StatementMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        StatementCountingInspector.resetCurrentThread();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (pattern != null) {
+                DistributionSummary.builder(METRIC)
+                        .description("SQL statements issued while handling one request")
+                        .tag(EntityTags.NAME, EntityTags.fromPath(pattern.toString()))
+                        .tag("method", request.getMethod())
+                        .tag("uri", pattern.toString())
+                        .register(meterRegistry)
+                        .record(StatementCountingInspector.currentThreadCount());
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
@@ -11,17 +12,29 @@ import javax.validation.constraints.NotBlank;
 @Getter
 @Setter
 @Entity
+@DynamicUpdate
+@Table(indexes = {
+        @Index(name = "idx_animal_owner_id", columnList = "owner_id, id"),
+        @Index(name = "idx_animal_vet_id", columnList = "vet_id, id")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 public class Animal {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "animal_seq")
+    @SequenceGenerator(name = "animal_seq", sequenceName = "animal_seq", allocationSize = 50)
     private Long id;
     @NotBlank
     private String name;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Owner owner;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Vet vet;
+    @Version
+    private Long version;
+
+    public Animal(Long id, String name, Owner owner, Vet vet) {
+        this(id, name, owner, vet, null);
+    }
 }
@@ -0,0 +1,131 @@
+package com.codecool.javaebremek.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Which Animal fields a response carries. ?fields= picks them, e.g. id,name,owner.id; ?expand=owner,vet swaps
+// ownerId/vetId for nested objects. Only owner/vet columns other than their id need a join.
+public class AnimalFieldSelection {
+
+    public static final List<String> RELATIONS = List.of("owner", "vet");
+
+    // Output path -> JPQL expression over "a" (the animal) and the join aliases, in output order.
+    private static final Map<String, String> COLUMNS = columns();
+
+    private static final List<String> FLAT = List.of("id", "name", "ownerId", "vetId", "version");
+    private static final List<String> NESTED = List.of("id", "name", "version");
+
+    private final List<String> paths;
+
+    private AnimalFieldSelection(Set<String> selected) {
+        this.paths = COLUMNS.keySet().stream().filter(selected::contains).collect(Collectors.toUnmodifiableList());
+    }
+
+    private static Map<String, String> columns() {
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("id", "a.id");
+        columns.put("name", "a.name");
+        columns.put("ownerId", "a.owner.id");
+        columns.put("vetId", "a.vet.id");
+        columns.put("version", "a.version");
+        for (String relation : RELATIONS) {
+            columns.put(relation + ".id", "a." + relation + ".id");
+            columns.put(relation + ".name", alias(relation) + ".name");
+            columns.put(relation + ".version", alias(relation) + ".version");
+        }
+        return Collections.unmodifiableMap(columns);
+    }
+
+    // Without either parameter this is the flat view; unknown names throw IllegalArgumentException.
+    public static AnimalFieldSelection parse(String fields, String expand) {
+        Set<String> expanded = split(expand);
+        for (String relation : expanded) {
+            if (!RELATIONS.contains(relation)) {
+                throw new IllegalArgumentException(String.format("Cannot expand %s, expected one of %s", relation, RELATIONS));
+            }
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        if (fields == null) {
+            FLAT.stream().filter(field -> !expanded.contains(field.replace("Id", ""))).forEach(selected::add);
+        } else {
+            for (String field : split(fields)) {
+                if (RELATIONS.contains(field)) {
+                    expanded.add(field);
+                } else if (COLUMNS.containsKey(field)) {
+                    selected.add(field);
+                } else {
+                    throw new IllegalArgumentException(String.format("Unknown field %s, expected one of %s", field, COLUMNS.keySet()));
+                }
+            }
+        }
+        for (String relation : expanded) {
+            NESTED.forEach(field -> selected.add(relation + "." + field));
+        }
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("No fields selected");
+        }
+        return new AnimalFieldSelection(selected);
+    }
+
+    private static Set<String> split(String list) {
+        if (list == null) {
+            return new LinkedHashSet<>();
+        }
+        return Arrays.stream(list.split(","))
+                .map(String::trim)
+                .filter(item -> !item.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    public String expression(String path) {
+        return COLUMNS.get(path);
+    }
+
+    public static String alias(String relation) {
+        return relation.substring(0, 1);
+    }
+
+    public boolean joins(String relation) {
+        return paths.stream().anyMatch(path -> path.startsWith(relation + ".") && !path.equals(relation + ".id"));
+    }
+
+    // A row holds the animal id first, selected or not, for the keyset cursor, then one value per path.
+    public Map<String, Object> toMap(Object[] row) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        List<String> nullRelations = new ArrayList<>(RELATIONS);
+        for (int i = 0; i < paths.size(); i++) {
+            String path = paths.get(i);
+            Object value = row[i + 1];
+            int dot = path.indexOf('.');
+            if (dot < 0) {
+                result.put(path, value);
+                continue;
+            }
+            String relation = path.substring(0, dot);
+            @SuppressWarnings("unchecked")
+            Map<String, Object> nested = (Map<String, Object>) result.computeIfAbsent(relation, key -> new LinkedHashMap<>());
+            nested.put(path.substring(dot + 1), value);
+            if (value != null) {
+                nullRelations.remove(relation);
+            }
+        }
+        // An animal without an owner or vet gets null, as in the full view, rather than an object of nulls.
+        for (String relation : nullRelations) {
+            if (result.containsKey(relation)) {
+                result.put(relation, null);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,17 @@
+package com.codecool.javaebremek.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnimalSummary {
+
+    private Long id;
+    private String name;
+    private Long ownerId;
+    private Long vetId;
+    private Long version;
+}
@@ -0,0 +1,11 @@
+package com.codecool.javaebremek.model;
+
+// The versions an animal's ETag covers: its own row and the owner and vet it embeds.
+public interface AnimalVersions {
+
+    Long getVersion();
+
+    Long getOwnerVersion();
+
+    Long getVetVersion();
+}
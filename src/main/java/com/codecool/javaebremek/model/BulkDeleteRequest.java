@@ -0,0 +1,38 @@
+package com.codecool.javaebremek.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+// Exactly one criterion is set: ids, or one of the filters the target resource supports.
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDeleteRequest {
+
+    private List<Long> ids;
+    private Long ownerId;
+    private Long vetId;
+    private Boolean withoutAnimals;
+
+    public int criteriaCount() {
+        int count = 0;
+        if (ids != null) {
+            count++;
+        }
+        if (ownerId != null) {
+            count++;
+        }
+        if (vetId != null) {
+            count++;
+        }
+        if (Boolean.TRUE.equals(withoutAnimals)) {
+            count++;
+        }
+        return count;
+    }
+}
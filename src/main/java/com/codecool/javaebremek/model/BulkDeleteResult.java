@@ -0,0 +1,15 @@
+package com.codecool.javaebremek.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDeleteResult {
+
+    private int deleted;
+    private int animalsDetached;
+    private int animalsDeleted;
+}
@@ -0,0 +1,41 @@
+package com.codecool.javaebremek.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeEvent {
+
+    public enum Operation {
+        CREATED, UPDATED, DELETED
+    }
+
+    // Insert order, which is not commit order; only ChangeRelay reads it.
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonIgnore
+    private Long id;
+    // Set by ChangeRelay once the event has committed; consumers resume from it, and it grows by one per event.
+    @Column(name = "publish_sequence", unique = true)
+    private Long sequence;
+    @Column(nullable = false)
+    private String entity;
+    @Column(nullable = false)
+    private Long entityId;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Operation operation;
+    private Long version;
+    @Column(nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,13 @@
+package com.codecool.javaebremek.model;
+
+import java.util.Locale;
+
+// What happens to animals that still reference an owner or vet being deleted.
+public enum DependentPolicy {
+
+    REJECT, DETACH, CASCADE;
+
+    public static DependentPolicy parse(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
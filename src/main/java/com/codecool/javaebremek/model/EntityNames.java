@@ -0,0 +1,12 @@
+package com.codecool.javaebremek.model;
+
+// The names the API uses for each resource; change events, metrics and hot-key tracking label entities with them.
+public final class EntityNames {
+
+    public static final String ANIMALS = "animals";
+    public static final String OWNERS = "owners";
+    public static final String VETS = "vets";
+
+    private EntityNames() {
+    }
+}
@@ -0,0 +1,10 @@
+package com.codecool.javaebremek.model;
+
+public interface IndexedName {
+
+    Long getId();
+
+    String getName();
+
+    Long getVersion();
+}
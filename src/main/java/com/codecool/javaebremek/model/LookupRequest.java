@@ -0,0 +1,17 @@
+package com.codecool.javaebremek.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LookupRequest {
+
+    private List<Long> ids;
+}
@@ -0,0 +1,17 @@
+package com.codecool.javaebremek.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Items in the order their ids were requested; ids with no row are listed in missing instead.
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LookupResult<T> {
+
+    private List<T> items;
+    private List<Long> missing;
+}
@@ -1,10 +1,12 @@
 package com.codecool.javaebremek.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
@@ -13,16 +15,29 @@ import java.util.List;
 @Getter
 @Setter
 @Entity
+@DynamicUpdate
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Vet {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "vet_seq")
+    @SequenceGenerator(name = "vet_seq", sequenceName = "vet_seq", allocationSize = 50)
     private Long id;
     @NotBlank
     private String name;
     @OneToMany(mappedBy = "vet")
     @JsonIgnore
     private List<Animal> animals;
+    @Version
+    private Long version;
+    // Maintained by AnimalService in the same transaction as the animal change; never written through the entity.
+    @Column(insertable = false, updatable = false, columnDefinition = "bigint default 0 not null")
+    @JsonIgnore
+    private long animalCount;
+
+    public Vet(Long id, String name, List<Animal> animals) {
+        this(id, name, animals, null, 0);
+    }
 }
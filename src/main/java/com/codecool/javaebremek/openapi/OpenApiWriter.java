@@ -0,0 +1,71 @@
+package com.codecool.javaebremek.openapi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Build-time OpenAPI generation: starts once with springdoc enabled, saves the spec to a file, then exits.
+// The fast-startup profile turns springdoc off and serves that file as /openapi.json instead of scanning controllers.
+// java -cp ... JavaEbRemekApplication --remek.openapi.output=openapi/openapi.json
+@Component
+@ConditionalOnProperty("remek.openapi.output")
+public class OpenApiWriter implements ApplicationRunner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OpenApiWriter.class);
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Value("${remek.openapi.output}")
+    private Path output;
+
+    @Value("${remek.openapi.exit:true}")
+    private boolean exit;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${springdoc.api-docs.path:/v3/api-docs}")
+    private String apiDocsPath;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException, InterruptedException {
+        write();
+        if (exit) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    public Path write() throws IOException, InterruptedException {
+        // Fetched over HTTP so the file is exactly what /v3/api-docs would have served at runtime.
+        String port = environment.getRequiredProperty("local.server.port");
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + apiDocsPath)).build();
+        HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(String.format("%s answered %d, is springdoc disabled?", apiDocsPath, response.statusCode()));
+        }
+        Path parent = output.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.writeString(output, response.body());
+        LOG.info("Wrote OpenAPI spec to {}", output.toAbsolutePath());
+        return output;
+    }
+}
@@ -0,0 +1,60 @@
+package com.codecool.javaebremek.paging;
+
+import com.codecool.javaebremek.conditional.ETags;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Getter
+@AllArgsConstructor
+public class KeysetPage<T> {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    // One extra row is requested so the presence of a next page is known without a count query.
+    public static Pageable probe(int size) {
+        return PageRequest.of(0, size + 1);
+    }
+
+    public static <T> KeysetPage<T> of(List<T> rows, int size, Function<T, Long> idOf) {
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new KeysetPage<>(items, KeysetCursor.encode(idOf.apply(items.get(size - 1))));
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public ResponseEntity<List<T>> toResponse() {
+        return toResponse(ResponseEntity.ok());
+    }
+
+    // Adds a weak ETag over the page content so unchanged polls are answered with 304 and no body.
+    public ResponseEntity<List<T>> toResponse(Function<T, String> fingerprint) {
+        return toResponse(ResponseEntity.ok().eTag(ETags.forPage(items, nextCursor, fingerprint)).varyBy(HttpHeaders.ACCEPT));
+    }
+
+    private ResponseEntity<List<T>> toResponse(ResponseEntity.BodyBuilder response) {
+        if (hasNext()) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", nextCursor)
+                    .toUriString();
+            response.header(NEXT_CURSOR_HEADER, nextCursor)
+                    .header(HttpHeaders.LINK, String.format("<%s>; rel=\"next\"", next));
+        }
+        return response.body(items);
+    }
+}
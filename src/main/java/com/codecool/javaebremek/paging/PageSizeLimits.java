@@ -0,0 +1,24 @@
+package com.codecool.javaebremek.paging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PageSizeLimits {
+
+    @Value("${remek.paging.default-size:50}")
+    private int defaultSize;
+
+    @Value("${remek.paging.max-size:500}")
+    private int maxSize;
+
+    public int resolve(Integer requested) {
+        if (requested == null) {
+            return defaultSize;
+        }
+        if (requested < 1) {
+            throw new IllegalArgumentException(String.format("Page size must be positive, got %d", requested));
+        }
+        return Math.min(requested, maxSize);
+    }
+}
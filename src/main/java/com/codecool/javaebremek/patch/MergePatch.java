@@ -0,0 +1,78 @@
+package com.codecool.javaebremek.patch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// JSON Merge Patch (RFC 7396) over the entity's own JSON view, so a patch names fields exactly as GET returns them.
+@Component
+public class MergePatch {
+
+    public static final String MERGE_PATCH_VALUE = "application/merge-patch+json";
+    // "false" when the patch left every column as it was and nothing was written.
+    public static final String CHANGED_HEADER = "X-Patch-Changed";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    // Returns a detached copy of current with the patch applied; the caller copies the changed fields back.
+    public <T> T apply(T current, JsonNode patch, Class<T> type) {
+        if (patch == null || !patch.isObject()) {
+            throw new IllegalArgumentException("A merge patch for a single entity must be a JSON object");
+        }
+        JsonNode target = objectMapper.valueToTree(current);
+        if (patch.has("id") && !patch.get("id").asText().equals(target.get("id").asText())) {
+            throw new IllegalArgumentException("The id cannot be patched");
+        }
+        T patched;
+        try {
+            patched = objectMapper.treeToValue(merge(target, patch), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e.getOriginalMessage(), e);
+        }
+        Set<ConstraintViolation<T>> violations = validator.validate(patched);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .collect(Collectors.joining(", ")));
+        }
+        return patched;
+    }
+
+    // The version comes from If-Match when given, otherwise from the patched body, which keeps the current one.
+    public static void requireVersion(Class<?> type, Long id, Long expected, Long actual) {
+        if (expected != null && !Objects.equals(expected, actual)) {
+            throw new ObjectOptimisticLockingFailureException(type, id);
+        }
+    }
+
+    // RFC 7396 section 2: null removes a member, objects merge recursively, anything else replaces.
+    public static JsonNode merge(JsonNode target, JsonNode patch) {
+        if (!patch.isObject()) {
+            return patch;
+        }
+        ObjectNode result = target != null && target.isObject() ? (ObjectNode) target : JsonNodeFactory.instance.objectNode();
+        patch.fields().forEachRemaining(field -> {
+            if (field.getValue().isNull()) {
+                result.remove(field.getKey());
+            } else {
+                result.set(field.getKey(), merge(result.get(field.getKey()), field.getValue()));
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,12 @@
+package com.codecool.javaebremek.patch;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class PatchResult<T> {
+
+    private final T entity;
+    private final boolean changed;
+}
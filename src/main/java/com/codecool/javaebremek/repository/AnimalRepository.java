@@ -1,7 +1,109 @@
 package com.codecool.javaebremek.repository;
 
 import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.model.AnimalSummary;
+import com.codecool.javaebremek.model.AnimalVersions;
+import com.codecool.javaebremek.model.IndexedName;
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.model.Vet;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface AnimalRepository extends JpaRepository<Animal, Long> {
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+public interface AnimalRepository extends JpaRepository<Animal, Long>, AnimalRepositoryCustom {
+
+    @Override
+    @EntityGraph(attributePaths = {"owner", "vet"})
+    Optional<Animal> findById(Long id);
+
+    @EntityGraph(attributePaths = {"owner", "vet"})
+    List<Animal> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"owner", "vet"})
+    List<Animal> findByIdIn(Collection<Long> ids);
+
+    @Query("select new com.codecool.javaebremek.model.AnimalSummary(a.id, a.name, a.owner.id, a.vet.id, a.version) " +
+            "from Animal a where a.id > :id order by a.id")
+    List<AnimalSummary> findSummariesByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+
+    @Query("select new com.codecool.javaebremek.model.AnimalSummary(a.id, a.name, a.owner.id, a.vet.id, a.version) " +
+            "from Animal a where a.id in :ids")
+    List<AnimalSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select new com.codecool.javaebremek.model.AnimalSummary(a.id, a.name, a.owner.id, a.vet.id, a.version) " +
+            "from Animal a order by a.id")
+    Stream<AnimalSummary> streamSummaries();
+
+    @Query("select new com.codecool.javaebremek.model.AnimalSummary(a.id, a.name, a.owner.id, a.vet.id, a.version) " +
+            "from Animal a where a.owner.id = :ownerId and a.id > :id order by a.id")
+    List<AnimalSummary> findSummariesByOwnerId(@Param("ownerId") Long ownerId, @Param("id") Long id, Pageable pageable);
+
+    @Query("select new com.codecool.javaebremek.model.AnimalSummary(a.id, a.name, a.owner.id, a.vet.id, a.version) " +
+            "from Animal a where a.vet.id = :vetId and a.id > :id order by a.id")
+    List<AnimalSummary> findSummariesByVetId(@Param("vetId") Long vetId, @Param("id") Long id, Pageable pageable);
+
+    // Locks the animal row so concurrent reassignments read the owner and vet they actually replace.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new com.codecool.javaebremek.model.AnimalSummary(a.id, a.name, a.owner.id, a.vet.id, a.version) " +
+            "from Animal a where a.id = :id")
+    Optional<AnimalSummary> lockSummaryById(@Param("id") Long id);
+
+    @Query("select a.version as version, o.version as ownerVersion, v.version as vetVersion " +
+            "from Animal a left join a.owner o left join a.vet v where a.id = :id")
+    Optional<AnimalVersions> findVersionsById(@Param("id") Long id);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select a.id as id, a.name as name, a.version as version from Animal a")
+    Stream<IndexedName> streamNames();
+
+    @Modifying
+    @Query("update Animal a set a.name = :name, a.owner = :owner, a.vet = :vet, a.version = a.version + 1 " +
+            "where a.id = :id")
+    int updateById(@Param("id") Long id, @Param("name") String name, @Param("owner") Owner owner, @Param("vet") Vet vet);
+
+    @Modifying
+    @Query("update Animal a set a.name = :name, a.owner = :owner, a.vet = :vet, a.version = a.version + 1 " +
+            "where a.id = :id and a.version = :version")
+    int updateByIdAndVersion(@Param("id") Long id, @Param("name") String name, @Param("owner") Owner owner,
+                             @Param("vet") Vet vet, @Param("version") Long version);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a.id from Animal a where a.id in :ids")
+    List<Long> lockIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a.id from Animal a where a.owner.id in :ownerIds")
+    List<Long> lockIdsByOwnerIdIn(@Param("ownerIds") Collection<Long> ownerIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a.id from Animal a where a.vet.id in :vetIds")
+    List<Long> lockIdsByVetIdIn(@Param("vetIds") Collection<Long> vetIds);
+
+    @Modifying
+    @Query("delete from Animal a where a.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update Animal a set a.owner = null, a.version = a.version + 1 where a.id in :ids")
+    int detachOwnerByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update Animal a set a.vet = null, a.version = a.version + 1 where a.id in :ids")
+    int detachVetByIdIn(@Param("ids") Collection<Long> ids);
 }
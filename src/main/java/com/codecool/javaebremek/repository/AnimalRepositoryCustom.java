@@ -0,0 +1,15 @@
+package com.codecool.javaebremek.repository;
+
+import com.codecool.javaebremek.model.AnimalFieldSelection;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Optional;
+
+// Queries whose select list is only known at request time; rows start with the animal id, see AnimalFieldSelection.
+public interface AnimalRepositoryCustom {
+
+    List<Object[]> findFieldsByIdGreaterThan(AnimalFieldSelection selection, Long id, Pageable pageable);
+
+    Optional<Object[]> findFieldsById(AnimalFieldSelection selection, Long id);
+}
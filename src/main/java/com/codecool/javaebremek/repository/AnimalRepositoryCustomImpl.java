@@ -0,0 +1,46 @@
+package com.codecool.javaebremek.repository;
+
+import com.codecool.javaebremek.model.AnimalFieldSelection;
+import org.springframework.data.domain.Pageable;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+public class AnimalRepositoryCustomImpl implements AnimalRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Object[]> findFieldsByIdGreaterThan(AnimalFieldSelection selection, Long id, Pageable pageable) {
+        return entityManager.createQuery(select(selection) + " where a.id > :id order by a.id", Object[].class)
+                .setParameter("id", id)
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+    }
+
+    @Override
+    public Optional<Object[]> findFieldsById(AnimalFieldSelection selection, Long id) {
+        return entityManager.createQuery(select(selection) + " where a.id = :id", Object[].class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst();
+    }
+
+    // Expressions come from AnimalFieldSelection's fixed catalogue, never from the request text itself.
+    private static String select(AnimalFieldSelection selection) {
+        StringBuilder jpql = new StringBuilder("select a.id");
+        for (String path : selection.getPaths()) {
+            jpql.append(", ").append(selection.expression(path));
+        }
+        jpql.append(" from Animal a");
+        jpql.append(AnimalFieldSelection.RELATIONS.stream()
+                .filter(selection::joins)
+                .map(relation -> String.format(" left join a.%s %s", relation, AnimalFieldSelection.alias(relation)))
+                .collect(Collectors.joining()));
+        return jpql.toString();
+    }
+}
@@ -0,0 +1,17 @@
+package com.codecool.javaebremek.repository;
+
+import com.codecool.javaebremek.model.ChangeEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import javax.persistence.QueryHint;
+import java.util.List;
+
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+public interface ChangeEventRepository extends JpaRepository<ChangeEvent, Long> {
+
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    List<ChangeEvent> findBySequenceGreaterThanOrderBySequenceAsc(Long sequence, Pageable pageable);
+}
@@ -0,0 +1,30 @@
+package com.codecool.javaebremek.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.util.Optional;
+
+// Runs an update that bumps a version column and hands back the new value from the same statement, through JDBC
+// generated keys: H2 returns the named column for updates, and the PostgreSQL driver appends RETURNING for it.
+final class NewVersions {
+
+    private static final String[] VERSION = {"version"};
+
+    private NewVersions() {
+    }
+
+    static Optional<Long> update(JdbcTemplate jdbcTemplate, String sql, Object... args) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, VERSION);
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            return statement;
+        }, keyHolder);
+        return Optional.ofNullable(keyHolder.getKeyAs(Long.class));
+    }
+}
@@ -1,7 +1,69 @@
 package com.codecool.javaebremek.repository;
 
+import com.codecool.javaebremek.model.AnimalCount;
+import com.codecool.javaebremek.model.IndexedName;
 import com.codecool.javaebremek.model.Owner;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface OwnerRepository extends JpaRepository<Owner, Long> {
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+public interface OwnerRepository extends JpaRepository<Owner, Long>, OwnerRepositoryCustom {
+
+    List<Owner> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Owner> streamAllByOrderByIdAsc();
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select o.id as id, o.name as name, o.version as version from Owner o")
+    Stream<IndexedName> streamNames();
+
+    @Modifying
+    @Query("update Owner o set o.name = :name, o.version = o.version + 1 where o.id = :id and o.version = :version")
+    int updateByIdAndVersion(@Param("id") Long id, @Param("name") String name, @Param("version") Long version);
+
+    @Query("select new com.codecool.javaebremek.model.AnimalCount(o.id, o.name, o.animalCount) " +
+            "from Owner o where o.id > :id order by o.id")
+    List<AnimalCount> findAnimalCountsByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+
+    @Modifying
+    @Query("update Owner o set o.animalCount = o.animalCount + :delta where o.id = :id")
+    int addToAnimalCount(@Param("id") Long id, @Param("delta") long delta);
+
+    @Modifying
+    @Query("update Owner o set o.animalCount = (select count(a) from Animal a where a.owner = o) " +
+            "where o.animalCount <> (select count(a) from Animal a where a.owner = o)")
+    int reconcileAnimalCounts();
+
+    // Subtracts, per owner, the animals about to be deleted; runs before the animals are gone.
+    @Modifying
+    @Query("update Owner o set o.animalCount = o.animalCount - " +
+            "(select count(a) from Animal a where a.owner = o and a.id in :animalIds) " +
+            "where o.id in (select a.owner.id from Animal a where a.id in :animalIds)")
+    int subtractAnimalCounts(@Param("animalIds") Collection<Long> animalIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o.id from Owner o where o.id in :ids")
+    List<Long> lockIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o.id from Owner o where not exists (select a from Animal a where a.owner = o)")
+    List<Long> lockIdsWithoutAnimals();
+
+    @Modifying
+    @Query("delete from Owner o where o.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,9 @@
+package com.codecool.javaebremek.repository;
+
+import java.util.Optional;
+
+public interface OwnerRepositoryCustom {
+
+    // The version the update produced, or empty when no owner has the id.
+    Optional<Long> updateByIdReturningVersion(Long id, String name);
+}
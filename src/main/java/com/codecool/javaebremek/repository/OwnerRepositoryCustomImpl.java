@@ -0,0 +1,17 @@
+package com.codecool.javaebremek.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Optional;
+
+public class OwnerRepositoryCustomImpl implements OwnerRepositoryCustom {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Optional<Long> updateByIdReturningVersion(Long id, String name) {
+        return NewVersions.update(jdbcTemplate, "update owner set name = ?, version = version + 1 where id = ?", name, id);
+    }
+}
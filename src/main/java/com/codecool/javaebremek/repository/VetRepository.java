@@ -1,7 +1,69 @@
 package com.codecool.javaebremek.repository;
 
+import com.codecool.javaebremek.model.AnimalCount;
+import com.codecool.javaebremek.model.IndexedName;
 import com.codecool.javaebremek.model.Vet;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface VetRepository extends JpaRepository<Vet, Long> {
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+public interface VetRepository extends JpaRepository<Vet, Long>, VetRepositoryCustom {
+
+    List<Vet> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Vet> streamAllByOrderByIdAsc();
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select v.id as id, v.name as name, v.version as version from Vet v")
+    Stream<IndexedName> streamNames();
+
+    @Modifying
+    @Query("update Vet v set v.name = :name, v.version = v.version + 1 where v.id = :id and v.version = :version")
+    int updateByIdAndVersion(@Param("id") Long id, @Param("name") String name, @Param("version") Long version);
+
+    @Query("select new com.codecool.javaebremek.model.AnimalCount(v.id, v.name, v.animalCount) " +
+            "from Vet v where v.id > :id order by v.id")
+    List<AnimalCount> findAnimalCountsByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+
+    @Modifying
+    @Query("update Vet v set v.animalCount = v.animalCount + :delta where v.id = :id")
+    int addToAnimalCount(@Param("id") Long id, @Param("delta") long delta);
+
+    @Modifying
+    @Query("update Vet v set v.animalCount = (select count(a) from Animal a where a.vet = v) " +
+            "where v.animalCount <> (select count(a) from Animal a where a.vet = v)")
+    int reconcileAnimalCounts();
+
+    // Subtracts, per vet, the animals about to be deleted; runs before the animals are gone.
+    @Modifying
+    @Query("update Vet v set v.animalCount = v.animalCount - " +
+            "(select count(a) from Animal a where a.vet = v and a.id in :animalIds) " +
+            "where v.id in (select a.vet.id from Animal a where a.id in :animalIds)")
+    int subtractAnimalCounts(@Param("animalIds") Collection<Long> animalIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select v.id from Vet v where v.id in :ids")
+    List<Long> lockIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select v.id from Vet v where not exists (select a from Animal a where a.vet = v)")
+    List<Long> lockIdsWithoutAnimals();
+
+    @Modifying
+    @Query("delete from Vet v where v.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
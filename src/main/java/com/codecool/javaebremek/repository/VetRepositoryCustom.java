@@ -0,0 +1,9 @@
+package com.codecool.javaebremek.repository;
+
+import java.util.Optional;
+
+public interface VetRepositoryCustom {
+
+    // The version the update produced, or empty when no vet has the id.
+    Optional<Long> updateByIdReturningVersion(Long id, String name);
+}
@@ -0,0 +1,17 @@
+package com.codecool.javaebremek.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Optional;
+
+public class VetRepositoryCustomImpl implements VetRepositoryCustom {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Optional<Long> updateByIdReturningVersion(Long id, String name) {
+        return NewVersions.update(jdbcTemplate, "update vet set name = ?, version = version + 1 where id = ?", name, id);
+    }
+}
@@ -0,0 +1,249 @@
+package com.codecool.javaebremek.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+// In-memory trigram index over names. Every name is indexed with two leading markers ("^^rex" -> "^^r", "^re", "rex"),
+// so one and two character queries still find prefixes. Candidates are always re-checked against the current name.
+// Changes arrive after their commits in no particular order, so each carries the row version it wrote and one older
+// than what the index holds is dropped.
+public class NameIndex {
+
+    private static final char START = '^';
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    // Ids come from sequences and are never reused, so a removal outranks any change still on its way.
+    private static final long REMOVED = Long.MAX_VALUE;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Postings> grams = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    public void put(Long id, long version, String name) {
+        apply(id, version, normalize(name));
+    }
+
+    public void remove(Long id) {
+        apply(id, REMOVED, "");
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    // The whole change runs inside compute, so two changes to one id cannot interleave their posting updates.
+    private void apply(Long id, long version, String normalized) {
+        entries.compute(id, (key, current) -> {
+            if (current != null && current.version >= version) {
+                return current;
+            }
+            String previous = current == null ? null : current.name;
+            String next = normalized.isEmpty() ? null : normalized;
+            reindex(id, previous, next);
+            size.addAndGet((next == null ? 0 : 1) - (previous == null ? 0 : 1));
+            return new Entry(version, next);
+        });
+    }
+
+    private void reindex(Long id, String previous, String next) {
+        if (Objects.equals(previous, next)) {
+            return;
+        }
+        Set<String> added = next == null ? Set.of() : grams(next);
+        if (previous != null) {
+            for (String gram : grams(previous)) {
+                if (!added.contains(gram)) {
+                    grams.computeIfPresent(gram, (key, postings) -> postings.remove(id) ? null : postings);
+                }
+            }
+        }
+        for (String gram : added) {
+            grams.compute(gram, (key, postings) -> {
+                Postings target = postings == null ? new Postings() : postings;
+                target.add(id);
+                return target;
+            });
+        }
+    }
+
+    // Prefix matches rank first, then matches at the start of a later word, then any other substring;
+    // ties go to the lower id. Queries shorter than three characters only match name and word prefixes.
+    public List<Long> search(String query, int limit) {
+        String q = normalize(query);
+        Set<Long> result = new LinkedHashSet<>();
+        if (q.isEmpty() || limit < 1) {
+            return new ArrayList<>(result);
+        }
+        List<String> queryGrams = q.length() >= 3 ? new ArrayList<>(grams(q)) : new ArrayList<>();
+        queryGrams.removeIf(gram -> gram.charAt(0) == START);
+        collect(prefixGram(q), queryGrams, name -> name.startsWith(q), result, limit);
+        if (q.length() >= 2) {
+            String wordPrefix = " " + q;
+            collect(wordPrefix.substring(0, 3), queryGrams, name -> name.contains(wordPrefix), result, limit);
+        }
+        if (q.length() >= 3) {
+            collect(null, queryGrams, name -> name.contains(q), result, limit);
+        }
+        return new ArrayList<>(result);
+    }
+
+    // Walks the intersection of the posting lists in id order and keeps the ids whose current name passes the check.
+    private void collect(String leadingGram, List<String> queryGrams, Predicate<String> matches, Set<Long> result, int limit) {
+        List<View> views = new ArrayList<>();
+        if (leadingGram != null) {
+            views.add(view(leadingGram));
+        }
+        for (String gram : queryGrams) {
+            views.add(view(gram));
+        }
+        if (views.isEmpty() || result.size() >= limit) {
+            return;
+        }
+        views.sort(Comparator.comparingInt(view -> view.size));
+        View driver = views.get(0);
+        int[] cursors = new int[views.size()];
+        for (int i = 0; i < driver.size && result.size() < limit; i++) {
+            long id = driver.ids[i];
+            if (containsAll(views, cursors, id) && !result.contains(id)) {
+                Entry entry = entries.get(id);
+                if (entry != null && entry.name != null && matches.test(entry.name)) {
+                    result.add(id);
+                }
+            }
+        }
+    }
+
+    private static boolean containsAll(List<View> views, int[] cursors, long id) {
+        for (int v = 1; v < views.size(); v++) {
+            View view = views.get(v);
+            cursors[v] = view.seek(cursors[v], id);
+            if (cursors[v] >= view.size || view.ids[cursors[v]] != id) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private View view(String gram) {
+        Postings postings = grams.get(gram);
+        return postings == null ? View.EMPTY : postings.view();
+    }
+
+    static String normalize(String name) {
+        if (name == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        String stripped = DIACRITICS.matcher(decomposed).replaceAll("");
+        return WHITESPACE.matcher(stripped.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> grams(String normalized) {
+        String padded = "" + START + START + normalized;
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static String prefixGram(String q) {
+        String padded = "" + START + START + q;
+        return q.length() >= 2 ? padded.substring(1, 4) : padded.substring(0, 3);
+    }
+
+    // The name is null once the id has been removed; the entry stays behind to turn away late changes.
+    private static final class Entry {
+
+        private final long version;
+        private final String name;
+
+        private Entry(long version, String name) {
+            this.version = version;
+            this.name = name;
+        }
+    }
+
+    // Ids sorted ascending. Sequence ids arrive in order, so adds append in place beyond what any reader has seen;
+    // the rare out-of-order insert and every remove copy the array, so a View never changes underneath a reader.
+    private static final class Postings {
+
+        private long[] ids = new long[4];
+        private int size;
+
+        private synchronized void add(long id) {
+            if (size == 0 || id > ids[size - 1]) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                }
+                ids[size++] = id;
+                return;
+            }
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                return;
+            }
+            int insertAt = -at - 1;
+            long[] copy = new long[Math.max(ids.length, size + 1)];
+            System.arraycopy(ids, 0, copy, 0, insertAt);
+            copy[insertAt] = id;
+            System.arraycopy(ids, insertAt, copy, insertAt + 1, size - insertAt);
+            ids = copy;
+            size++;
+        }
+
+        // Returns true when the list became empty and can be dropped.
+        private synchronized boolean remove(long id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                long[] copy = new long[ids.length];
+                System.arraycopy(ids, 0, copy, 0, at);
+                System.arraycopy(ids, at + 1, copy, at, size - at - 1);
+                ids = copy;
+                size--;
+            }
+            return size == 0;
+        }
+
+        private synchronized View view() {
+            return new View(ids, size);
+        }
+    }
+
+    private static final class View {
+
+        private static final View EMPTY = new View(new long[0], 0);
+
+        private final long[] ids;
+        private final int size;
+
+        private View(long[] ids, int size) {
+            this.ids = ids;
+            this.size = size;
+        }
+
+        // Galloping search for the first position at or after from whose id is >= target.
+        private int seek(int from, long target) {
+            int bound = 1;
+            while (from + bound < size && ids[from + bound] < target) {
+                bound <<= 1;
+            }
+            int low = from + (bound >> 1);
+            int high = Math.min(from + bound, size);
+            int at = Arrays.binarySearch(ids, low, high, target);
+            return at >= 0 ? at : -at - 1;
+        }
+    }
+}
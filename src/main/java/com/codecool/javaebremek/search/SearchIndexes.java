@@ -0,0 +1,105 @@
+package com.codecool.javaebremek.search;
+
+import com.codecool.javaebremek.model.IndexedName;
+import com.codecool.javaebremek.repository.AnimalRepository;
+import com.codecool.javaebremek.repository.OwnerRepository;
+import com.codecool.javaebremek.repository.VetRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Component
+public class SearchIndexes {
+
+    private final NameIndex animals = new NameIndex();
+    private final NameIndex owners = new NameIndex();
+    private final NameIndex vets = new NameIndex();
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private VetRepository vetRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${remek.search.default-limit:20}")
+    private int defaultLimit;
+
+    @Value("${remek.search.max-limit:100}")
+    private int maxLimit;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> load(animals, animalRepository.streamNames()));
+        readOnly.executeWithoutResult(status -> load(owners, ownerRepository.streamNames()));
+        readOnly.executeWithoutResult(status -> load(vets, vetRepository.streamNames()));
+    }
+
+    private static void load(NameIndex index, Stream<IndexedName> rows) {
+        try (rows) {
+            rows.forEach(row -> index.put(row.getId(), row.getVersion(), row.getName()));
+        }
+    }
+
+    public NameIndex animals() {
+        return animals;
+    }
+
+    public NameIndex owners() {
+        return owners;
+    }
+
+    public NameIndex vets() {
+        return vets;
+    }
+
+    public int resolveLimit(Integer requested) {
+        if (requested == null) {
+            return defaultLimit;
+        }
+        if (requested < 1) {
+            throw new IllegalArgumentException(String.format("Search limit must be positive, got %d", requested));
+        }
+        return Math.min(requested, maxLimit);
+    }
+
+    // Rows fetched by id come back in table order; this restores the ranking and drops ids deleted in the meantime.
+    public static <T> List<T> inRankOrder(List<Long> rankedIds, List<T> rows, Function<T, Long> idOf) {
+        Map<Long, T> byId = rows.stream().collect(Collectors.toMap(idOf, Function.identity()));
+        return rankedIds.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    // Index changes wait for the commit, so a rolled back write never shows up in search results.
+    public void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
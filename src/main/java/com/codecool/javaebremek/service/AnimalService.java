@@ -1,12 +1,48 @@
 package com.codecool.javaebremek.service;
 
+import com.codecool.javaebremek.changes.Outbox;
+import com.codecool.javaebremek.coalescing.RoutedKey;
+import com.codecool.javaebremek.coalescing.SingleFlight;
+import com.codecool.javaebremek.lookup.IdLookup;
 import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.model.AnimalFieldSelection;
+import com.codecool.javaebremek.model.AnimalSummary;
+import com.codecool.javaebremek.model.AnimalVersions;
+import com.codecool.javaebremek.model.BulkDeleteRequest;
+import com.codecool.javaebremek.model.BulkDeleteResult;
+import com.codecool.javaebremek.model.ChangeEvent;
+import com.codecool.javaebremek.model.EntityNames;
+import com.codecool.javaebremek.model.LookupResult;
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.model.Vet;
+import com.codecool.javaebremek.paging.KeysetCursor;
+import com.codecool.javaebremek.paging.KeysetPage;
+import com.codecool.javaebremek.paging.PageSizeLimits;
+import com.codecool.javaebremek.patch.MergePatch;
+import com.codecool.javaebremek.patch.PatchResult;
 import com.codecool.javaebremek.repository.AnimalRepository;
+import com.codecool.javaebremek.repository.OwnerRepository;
+import com.codecool.javaebremek.repository.VetRepository;
+import com.codecool.javaebremek.search.SearchIndexes;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class AnimalService {
@@ -14,34 +50,299 @@ public class AnimalService {
     @Autowired
     private AnimalRepository animalRepository;
 
-    public List<Animal> findAll() {
-        return animalRepository.findAll();
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private VetRepository vetRepository;
+
+    @Autowired
+    private PageSizeLimits pageSizeLimits;
+
+    @Autowired
+    private SearchIndexes searchIndexes;
+
+    @Autowired
+    private Outbox outbox;
+
+    @Autowired
+    private SingleFlight<RoutedKey<Long>, Optional<Animal>> animalLoads;
+
+    @Autowired
+    private MergePatch mergePatch;
+
+    @Autowired
+    private IdLookup idLookup;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public KeysetPage<AnimalSummary> findAll(String cursor, Integer size) {
+        int limit = pageSizeLimits.resolve(size);
+        List<AnimalSummary> rows = animalRepository.findSummariesByIdGreaterThan(KeysetCursor.decode(cursor), KeysetPage.probe(limit));
+        return KeysetPage.of(rows, limit, AnimalSummary::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public KeysetPage<Animal> findAllWithOwnerAndVet(String cursor, Integer size) {
+        int limit = pageSizeLimits.resolve(size);
+        List<Animal> rows = animalRepository.findByIdGreaterThanOrderByIdAsc(KeysetCursor.decode(cursor), KeysetPage.probe(limit));
+        return KeysetPage.of(rows, limit, Animal::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public LookupResult<AnimalSummary> findAllById(List<Long> ids) {
+        return idLookup.find(ids, animalRepository::findSummariesByIdIn, AnimalSummary::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public LookupResult<Animal> findAllWithOwnerAndVetById(List<Long> ids) {
+        return idLookup.find(ids, animalRepository::findByIdIn, Animal::getId);
+    }
+
+    // Selects only the requested columns, joining owner or vet only when one of their non-id fields is asked for.
+    @Transactional(readOnly = true)
+    public KeysetPage<Map<String, Object>> findFields(AnimalFieldSelection selection, String cursor, Integer size) {
+        int limit = pageSizeLimits.resolve(size);
+        List<Object[]> rows = animalRepository.findFieldsByIdGreaterThan(selection, KeysetCursor.decode(cursor), KeysetPage.probe(limit));
+        KeysetPage<Object[]> page = KeysetPage.of(rows, limit, row -> (Long) row[0]);
+        return new KeysetPage<>(page.getItems().stream().map(selection::toMap).collect(Collectors.toList()), page.getNextCursor());
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> findFieldsById(AnimalFieldSelection selection, Long id) {
+        return animalRepository.findFieldsById(selection, id).map(selection::toMap);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<AnimalSummary> action) {
+        try (Stream<AnimalSummary> rows = animalRepository.streamSummaries()) {
+            rows.forEach(action);
+        }
     }
 
+    @Transactional(readOnly = true)
+    public List<AnimalSummary> search(String query, Integer limit) {
+        List<Long> ids = searchIndexes.animals().search(query, searchIndexes.resolveLimit(limit));
+        return SearchIndexes.inRankOrder(ids, animalRepository.findSummariesByIdIn(ids), AnimalSummary::getId);
+    }
+
+    @Transactional
     public Animal add(Animal animal) {
         animal.setId(null);
-        return save(animal);
+        animal.setVersion(null);
+        animal.setOwner(ownerReference(animal.getOwner()));
+        animal.setVet(vetReference(animal.getVet()));
+        Animal saved = save(animal);
+        moveCounts(null, idOf(saved.getOwner()), null, idOf(saved.getVet()));
+        outbox.record(EntityNames.ANIMALS, saved.getId(), ChangeEvent.Operation.CREATED, saved.getVersion());
+        indexAfterCommit(saved);
+        return saved;
     }
 
+    @Transactional
+    public List<Animal> addAll(List<Animal> animals) {
+        animals.forEach(animal -> {
+            animal.setId(null);
+            animal.setVersion(null);
+            animal.setOwner(ownerReference(animal.getOwner()));
+            animal.setVet(vetReference(animal.getVet()));
+        });
+        List<Animal> saved = animalRepository.saveAll(animals);
+        countPerId(saved, Animal::getOwner, this::idOf).forEach(ownerRepository::addToAnimalCount);
+        countPerId(saved, Animal::getVet, this::idOf).forEach(vetRepository::addToAnimalCount);
+        outbox.recordAll(EntityNames.ANIMALS, saved, Animal::getId, Animal::getVersion, ChangeEvent.Operation.CREATED);
+        saved.forEach(this::indexAfterCommit);
+        return detachAfterSave(saved);
+    }
+
+    @Transactional
     public Animal updateById(Long id, Animal animal) {
-        if (animalRepository.existsById(id)) {
-            animal.setId(id);
-            return save(animal);
-        } else {
-            throw new RuntimeException(
-                    String.format("Can not be updated, because the id does not exist", id));
+        // The counters need the owner and vet being replaced, and an update can only return the values it wrote,
+        // so they come from this locked read; it also gives the version, so the update needs no read-back.
+        AnimalSummary current = animalRepository.lockSummaryById(id).orElseThrow(() -> new RuntimeException(
+                String.format("Can not be updated, because the id does not exist", id)));
+        Long version = animal.getVersion();
+        Owner owner = ownerReference(animal.getOwner());
+        Vet vet = vetReference(animal.getVet());
+        int updated = version == null
+                ? animalRepository.updateById(id, animal.getName(), owner, vet)
+                : animalRepository.updateByIdAndVersion(id, animal.getName(), owner, vet, version);
+        if (updated == 0) {
+            throw new ObjectOptimisticLockingFailureException(Animal.class, id);
+        }
+        moveCounts(current.getOwnerId(), idOf(owner), current.getVetId(), idOf(vet));
+        animal.setId(id);
+        animal.setVersion(current.getVersion() + 1);
+        outbox.record(EntityNames.ANIMALS, id, ChangeEvent.Operation.UPDATED, animal.getVersion());
+        indexAfterCommit(animal);
+        return animal;
+    }
+
+    // Owner and vet are patched by id, e.g. {"vet": {"id": 7}}; with @DynamicUpdate only changed columns are written.
+    @Transactional
+    public PatchResult<Animal> patchById(Long id, JsonNode patch, Long expectedVersion) {
+        Animal animal = animalRepository.findById(id).orElseThrow(() -> new RuntimeException(
+                String.format("Can not be patched, because the id %d does not exist", id)));
+        Animal patched = mergePatch.apply(animal, patch, Animal.class);
+        MergePatch.requireVersion(Animal.class, id, expectedVersion == null ? patched.getVersion() : expectedVersion, animal.getVersion());
+        Long fromOwnerId = idOf(animal.getOwner());
+        Long toOwnerId = idOf(patched.getOwner());
+        Long fromVetId = idOf(animal.getVet());
+        Long toVetId = idOf(patched.getVet());
+        boolean changed = false;
+        if (!Objects.equals(animal.getName(), patched.getName())) {
+            animal.setName(patched.getName());
+            changed = true;
+        }
+        if (!Objects.equals(fromOwnerId, toOwnerId)) {
+            animal.setOwner(toOwnerId == null ? null : ownerRepository.findById(toOwnerId).orElseThrow(() ->
+                    new IllegalArgumentException(String.format("Owner %d does not exist", toOwnerId))));
+            changed = true;
+        }
+        if (!Objects.equals(fromVetId, toVetId)) {
+            animal.setVet(toVetId == null ? null : vetRepository.findById(toVetId).orElseThrow(() ->
+                    new IllegalArgumentException(String.format("Vet %d does not exist", toVetId))));
+            changed = true;
         }
+        if (!changed) {
+            return new PatchResult<>(animal, false);
+        }
+        animalRepository.flush();
+        moveCounts(fromOwnerId, toOwnerId, fromVetId, toVetId);
+        outbox.record(EntityNames.ANIMALS, id, ChangeEvent.Operation.UPDATED, animal.getVersion());
+        indexAfterCommit(animal);
+        return new PatchResult<>(animal, true);
+    }
+
+    // Counters move by deltas in the animal's own transaction, so they commit or roll back together with it.
+    private void moveCounts(Long fromOwnerId, Long toOwnerId, Long fromVetId, Long toVetId) {
+        move(fromOwnerId, toOwnerId, ownerRepository::addToAnimalCount);
+        move(fromVetId, toVetId, vetRepository::addToAnimalCount);
+    }
+
+    // Counter rows are locked in ascending id order, so two moves in opposite directions cannot deadlock.
+    private static void move(Long fromId, Long toId, BiConsumer<Long, Long> addToAnimalCount) {
+        if (Objects.equals(fromId, toId)) {
+            return;
+        }
+        if (fromId != null && toId != null && toId < fromId) {
+            addToAnimalCount.accept(toId, 1L);
+            addToAnimalCount.accept(fromId, -1L);
+            return;
+        }
+        adjust(fromId, -1, addToAnimalCount);
+        adjust(toId, 1, addToAnimalCount);
+    }
+
+    private static void adjust(Long id, long delta, BiConsumer<Long, Long> addToAnimalCount) {
+        if (id != null) {
+            addToAnimalCount.accept(id, delta);
+        }
+    }
+
+    // One delta per distinct owner or vet keeps a batch at a handful of counter updates.
+    private static <T> Map<Long, Long> countPerId(List<Animal> animals, Function<Animal, T> relation, Function<T, Long> idOf) {
+        return animals.stream()
+                .map(relation)
+                .filter(Objects::nonNull)
+                .collect(Collectors.groupingBy(idOf, TreeMap::new, Collectors.counting()));
+    }
+
+    private Long idOf(Owner owner) {
+        return owner == null ? null : owner.getId();
+    }
+
+    private Long idOf(Vet vet) {
+        return vet == null ? null : vet.getId();
+    }
+
+    // A batch request keeps one open-in-view EntityManager across all its chunks; clearing it keeps the heap flat.
+    private List<Animal> detachAfterSave(List<Animal> saved) {
+        entityManager.flush();
+        entityManager.clear();
+        return saved;
+    }
+
+    private void indexAfterCommit(Animal animal) {
+        Long id = animal.getId();
+        long version = animal.getVersion();
+        String name = animal.getName();
+        searchIndexes.afterCommit(() -> searchIndexes.animals().put(id, version, name));
     }
 
     private Animal save(Animal animal) {
         return animalRepository.save(animal);
     }
 
+    // Clients reference owners and vets by id only; a proxy keeps Hibernate from treating them as transient.
+    private Owner ownerReference(Owner owner) {
+        return owner == null ? null : ownerRepository.getById(owner.getId());
+    }
+
+    private Vet vetReference(Vet vet) {
+        return vet == null ? null : vetRepository.getById(vet.getId());
+    }
+
+    // No service transaction here: callers waiting on another request's load must not hold a pool connection.
+    // The repository call still runs read-only and fetches owner and vet, so the shared instance needs no lazy loading.
     public Optional<Animal> findById(Long id) {
-        return animalRepository.findById(id);
+        return animalLoads.load(RoutedKey.of(id), () -> animalRepository.findById(id));
+    }
+
+    // A narrow read for revalidation: no entity, owner or vet is loaded.
+    public Optional<AnimalVersions> findVersionsById(Long id) {
+        return animalRepository.findVersionsById(id);
     }
 
+    @Transactional
     public void deleteById(Long id) {
-        animalRepository.deleteById(id);
+        if (deleteLocked(animalRepository.lockIdsByIdIn(List.of(id))) == 0) {
+            throw new RuntimeException(String.format("Can not be deleted, because the id %d does not exist", id));
+        }
+    }
+
+    @Transactional
+    public BulkDeleteResult deleteAll(BulkDeleteRequest request) {
+        List<Long> ids;
+        if (request.getIds() != null) {
+            ids = idLookup.selectInChunks(idLookup.distinct(request.getIds()), animalRepository::lockIdsByIdIn);
+        } else if (request.getOwnerId() != null) {
+            ids = animalRepository.lockIdsByOwnerIdIn(List.of(request.getOwnerId()));
+        } else {
+            ids = animalRepository.lockIdsByVetIdIn(List.of(request.getVetId()));
+        }
+        return new BulkDeleteResult(deleteLocked(ids), 0, 0);
+    }
+
+    // Deletes animals whose rows the caller has locked: counters, delete and outbox are one statement each per id chunk.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int deleteLocked(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        idLookup.updateInChunks(ids, ownerRepository::subtractAnimalCounts);
+        idLookup.updateInChunks(ids, vetRepository::subtractAnimalCounts);
+        int deleted = idLookup.updateInChunks(ids, animalRepository::deleteByIdIn);
+        outbox.recordAll(EntityNames.ANIMALS, ids, Function.identity(), id -> null, ChangeEvent.Operation.DELETED);
+        searchIndexes.afterCommit(() -> ids.forEach(searchIndexes.animals()::remove));
+        return deleted;
+    }
+
+    // Only for owners and vets being deleted in the same transaction, so their counters need no update.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int detachFromDeletedOwners(List<Long> ids) {
+        return detached(ids, idLookup.updateInChunks(ids, animalRepository::detachOwnerByIdIn));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int detachFromDeletedVets(List<Long> ids) {
+        return detached(ids, idLookup.updateInChunks(ids, animalRepository::detachVetByIdIn));
+    }
+
+    private int detached(List<Long> ids, int updated) {
+        outbox.recordAll(EntityNames.ANIMALS, ids, Function.identity(), id -> null, ChangeEvent.Operation.UPDATED);
+        return updated;
     }
 }
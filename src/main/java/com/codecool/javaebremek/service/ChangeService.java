@@ -0,0 +1,36 @@
+package com.codecool.javaebremek.service;
+
+import com.codecool.javaebremek.model.ChangeEvent;
+import com.codecool.javaebremek.paging.PageSizeLimits;
+import com.codecool.javaebremek.repository.ChangeEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+public class ChangeService {
+
+    @Autowired
+    private ChangeEventRepository changeEventRepository;
+
+    @Autowired
+    private PageSizeLimits pageSizeLimits;
+
+    @Transactional(readOnly = true)
+    public List<ChangeEvent> findSince(long since, Integer limit) {
+        return readBatch(since, pageSizeLimits.resolve(limit));
+    }
+
+    @Transactional(readOnly = true)
+    public List<ChangeEvent> readBatch(long since, int limit) {
+        if (since < 0) {
+            throw new IllegalArgumentException(String.format("Sequence must not be negative, got %d", since));
+        }
+        // Only published events have a sequence, and they are published in order, so a replica that lags behind
+        // the primary returns a shorter batch rather than one with a hole in it.
+        return changeEventRepository.findBySequenceGreaterThanOrderBySequenceAsc(since, PageRequest.of(0, limit));
+    }
+}
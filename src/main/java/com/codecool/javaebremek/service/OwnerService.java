@@ -1,13 +1,47 @@
 package com.codecool.javaebremek.service;
 
-import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.cache.CacheConfig;
+import com.codecool.javaebremek.changes.Outbox;
+import com.codecool.javaebremek.coalescing.RoutedKey;
+import com.codecool.javaebremek.coalescing.SingleFlight;
+import com.codecool.javaebremek.datasource.ReadYourWritesFilter;
+import com.codecool.javaebremek.lookup.IdLookup;
+import com.codecool.javaebremek.model.AnimalCount;
+import com.codecool.javaebremek.model.AnimalSummary;
+import com.codecool.javaebremek.model.BulkDeleteRequest;
+import com.codecool.javaebremek.model.BulkDeleteResult;
+import com.codecool.javaebremek.model.ChangeEvent;
+import com.codecool.javaebremek.model.EntityNames;
+import com.codecool.javaebremek.model.LookupResult;
+import com.codecool.javaebremek.model.DependentPolicy;
 import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.paging.KeysetCursor;
+import com.codecool.javaebremek.paging.KeysetPage;
+import com.codecool.javaebremek.paging.PageSizeLimits;
+import com.codecool.javaebremek.patch.MergePatch;
+import com.codecool.javaebremek.patch.PatchResult;
+import com.codecool.javaebremek.repository.AnimalRepository;
 import com.codecool.javaebremek.repository.OwnerRepository;
+import com.codecool.javaebremek.search.SearchIndexes;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 public class OwnerService {
@@ -15,38 +49,227 @@ public class OwnerService {
     @Autowired
     private OwnerRepository ownerRepository;
 
-    public List<Owner> findAll() {
-        return ownerRepository.findAll();
+    @Autowired
+    private AnimalService animalService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Value("${remek.delete.dependents:reject}")
+    private DependentPolicy defaultPolicy;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private PageSizeLimits pageSizeLimits;
+
+    @Autowired
+    private SearchIndexes searchIndexes;
+
+    @Autowired
+    private Outbox outbox;
+
+    @Autowired
+    private SingleFlight<RoutedKey<Long>, Optional<Owner>> ownerLoads;
+
+    @Autowired
+    private MergePatch mergePatch;
+
+    @Autowired
+    private IdLookup idLookup;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public KeysetPage<Owner> findAll(String cursor, Integer size) {
+        int limit = pageSizeLimits.resolve(size);
+        List<Owner> rows = ownerRepository.findByIdGreaterThanOrderByIdAsc(KeysetCursor.decode(cursor), KeysetPage.probe(limit));
+        return KeysetPage.of(rows, limit, Owner::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public LookupResult<Owner> findAllById(List<Long> ids) {
+        return idLookup.find(ids, ownerRepository::findAllById, Owner::getId);
     }
 
+    // Rows are detached once written, so the persistence context does not grow with the table.
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Owner> action) {
+        try (Stream<Owner> rows = ownerRepository.streamAllByOrderByIdAsc()) {
+            rows.forEach(owner -> {
+                action.accept(owner);
+                entityManager.detach(owner);
+            });
+        }
+    }
+
+    // Reads only the maintained counters; no animal rows are touched.
+    @Transactional(readOnly = true)
+    public KeysetPage<AnimalCount> findAnimalCounts(String cursor, Integer size) {
+        int limit = pageSizeLimits.resolve(size);
+        List<AnimalCount> rows = ownerRepository.findAnimalCountsByIdGreaterThan(KeysetCursor.decode(cursor), KeysetPage.probe(limit));
+        return KeysetPage.of(rows, limit, AnimalCount::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Owner> search(String query, Integer limit) {
+        List<Long> ids = searchIndexes.owners().search(query, searchIndexes.resolveLimit(limit));
+        return SearchIndexes.inRankOrder(ids, ownerRepository.findAllById(ids), Owner::getId);
+    }
+
+    @Transactional
     public Owner add(Owner owner) {
         owner.setId(null);
-        return save(owner);
+        owner.setVersion(null);
+        Owner saved = save(owner);
+        outbox.record(EntityNames.OWNERS, saved.getId(), ChangeEvent.Operation.CREATED, saved.getVersion());
+        indexAfterCommit(saved);
+        return saved;
+    }
+
+    // A batch request keeps one open-in-view EntityManager across all its chunks; clearing it keeps the heap flat.
+    @Transactional
+    public List<Owner> addAll(List<Owner> owners) {
+        owners.forEach(owner -> {
+            owner.setId(null);
+            owner.setVersion(null);
+        });
+        List<Owner> saved = ownerRepository.saveAll(owners);
+        outbox.recordAll(EntityNames.OWNERS, saved, Owner::getId, Owner::getVersion, ChangeEvent.Operation.CREATED);
+        saved.forEach(this::indexAfterCommit);
+        entityManager.flush();
+        entityManager.clear();
+        return saved;
     }
 
+    @Transactional
     public Owner updateById(Long id, Owner owner) {
-        if (ownerRepository.existsById(id)) {
-            owner.setId(id);
-            return save(owner);
-        } else {
+        // One statement either way: a versioned write knows the version it produces, an unversioned one gets it
+        // back from the update itself.
+        Long version = owner.getVersion();
+        Long updated = version == null
+                ? ownerRepository.updateByIdReturningVersion(id, owner.getName()).orElse(null)
+                : ownerRepository.updateByIdAndVersion(id, owner.getName(), version) == 0 ? null : version + 1;
+        if (updated == null) {
+            if (version != null && ownerRepository.existsById(id)) {
+                throw new ObjectOptimisticLockingFailureException(Owner.class, id);
+            }
             throw new RuntimeException(
                     String.format("Can not be updated, because the id does not exist", id));
         }
+        owner.setId(id);
+        owner.setVersion(updated);
+        outbox.record(EntityNames.OWNERS, id, ChangeEvent.Operation.UPDATED, owner.getVersion());
+        refreshAfterCommit(owner);
+        return owner;
+    }
+
+    // Only a changed name is written, and with @DynamicUpdate only its column; an unchanged patch writes nothing.
+    @Transactional
+    public PatchResult<Owner> patchById(Long id, JsonNode patch, Long expectedVersion) {
+        Owner owner = ownerRepository.findById(id).orElseThrow(() -> new RuntimeException(
+                String.format("Can not be patched, because the id %d does not exist", id)));
+        Owner patched = mergePatch.apply(owner, patch, Owner.class);
+        MergePatch.requireVersion(Owner.class, id, expectedVersion == null ? patched.getVersion() : expectedVersion, owner.getVersion());
+        if (Objects.equals(owner.getName(), patched.getName())) {
+            return new PatchResult<>(owner, false);
+        }
+        owner.setName(patched.getName());
+        ownerRepository.flush();
+        outbox.record(EntityNames.OWNERS, id, ChangeEvent.Operation.UPDATED, owner.getVersion());
+        refreshAfterCommit(owner);
+        return new PatchResult<>(owner, true);
+    }
+
+    private void indexAfterCommit(Owner owner) {
+        Long id = owner.getId();
+        long version = owner.getVersion();
+        String name = owner.getName();
+        searchIndexes.afterCommit(() -> searchIndexes.owners().put(id, version, name));
+    }
+
+    // The cached row is dropped only once the write has committed; an eviction that ran earlier would let a
+    // concurrent read put the old row back before the commit.
+    private void refreshAfterCommit(Owner owner) {
+        Long id = owner.getId();
+        long version = owner.getVersion();
+        String name = owner.getName();
+        Cache cache = cacheManager.getCache(CacheConfig.OWNERS);
+        searchIndexes.afterCommit(() -> {
+            searchIndexes.owners().put(id, version, name);
+            cache.evict(id);
+        });
     }
 
     private Owner save(Owner owner) {
         return ownerRepository.save(owner);
     }
 
+    // No service transaction here: callers waiting on another request's load must not hold a pool connection.
+    // Misses load from the primary even for unpinned callers, since what they load is cached: a row from a lagging
+    // replica would outlive the after-commit eviction of the write it is missing.
+    @Cacheable(cacheNames = CacheConfig.OWNERS, key = "#id", condition = CacheConfig.UNPINNED, unless = "#result == null")
     public Optional<Owner> findById(Long id) {
-        return ownerRepository.findById(id);
+        return ReadYourWritesFilter.onPrimary(() -> ownerLoads.load(RoutedKey.of(id), () -> ownerRepository.findById(id)));
     }
 
+    @Transactional
     public void deleteById(Long id) {
-        ownerRepository.deleteById(id);
+        deleteById(id, defaultPolicy);
+    }
+
+    @Transactional
+    public void deleteById(Long id, DependentPolicy policy) {
+        if (deleteLocked(ownerRepository.lockIdsByIdIn(List.of(id)), policy).getDeleted() == 0) {
+            throw new RuntimeException(String.format("Can not be deleted, because the id %d does not exist", id));
+        }
+    }
+
+    @Transactional
+    public BulkDeleteResult deleteAll(BulkDeleteRequest request, DependentPolicy policy) {
+        List<Long> ids = Boolean.TRUE.equals(request.getWithoutAnimals())
+                ? ownerRepository.lockIdsWithoutAnimals()
+                : idLookup.selectInChunks(idLookup.distinct(request.getIds()), ownerRepository::lockIdsByIdIn);
+        return deleteLocked(ids, policy == null ? defaultPolicy : policy);
+    }
+
+    // Each step is one set-based statement per id chunk; a rejected delete surfaces like the foreign key violation it prevents.
+    private BulkDeleteResult deleteLocked(List<Long> ids, DependentPolicy policy) {
+        if (ids.isEmpty()) {
+            return new BulkDeleteResult(0, 0, 0);
+        }
+        List<Long> animals = idLookup.selectInChunks(ids, animalRepository::lockIdsByOwnerIdIn);
+        int detached = 0;
+        int cascaded = 0;
+        if (!animals.isEmpty()) {
+            switch (policy) {
+                case DETACH:
+                    detached = animalService.detachFromDeletedOwners(animals);
+                    break;
+                case CASCADE:
+                    cascaded = animalService.deleteLocked(animals);
+                    break;
+                default:
+                    throw new DataIntegrityViolationException(
+                            String.format("%d animals still reference the owners being deleted", animals.size()));
+            }
+        }
+        int deleted = idLookup.updateInChunks(ids, ownerRepository::deleteByIdIn);
+        outbox.recordAll(EntityNames.OWNERS, ids, Function.identity(), id -> null, ChangeEvent.Operation.DELETED);
+        Cache cache = cacheManager.getCache(CacheConfig.OWNERS);
+        searchIndexes.afterCommit(() -> ids.forEach(id -> {
+            searchIndexes.owners().remove(id);
+            cache.evict(id);
+        }));
+        return new BulkDeleteResult(deleted, detached, cascaded);
     }
 
-    public List<Animal> getAnimalsByOwnersId(Long ownerId) {
-        return ownerRepository.findById(ownerId).orElseThrow().getAnimals();
+    @Transactional(readOnly = true)
+    public KeysetPage<AnimalSummary> getAnimalsByOwnersId(Long ownerId, String cursor, Integer size) {
+        int limit = pageSizeLimits.resolve(size);
+        List<AnimalSummary> rows = animalRepository.findSummariesByOwnerId(ownerId, KeysetCursor.decode(cursor), KeysetPage.probe(limit));
+        return KeysetPage.of(rows, limit, AnimalSummary::getId);
     }
 }
@@ -1,13 +1,47 @@
 package com.codecool.javaebremek.service;
 
-import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.cache.CacheConfig;
+import com.codecool.javaebremek.changes.Outbox;
+import com.codecool.javaebremek.coalescing.RoutedKey;
+import com.codecool.javaebremek.coalescing.SingleFlight;
+import com.codecool.javaebremek.datasource.ReadYourWritesFilter;
+import com.codecool.javaebremek.lookup.IdLookup;
+import com.codecool.javaebremek.model.AnimalCount;
+import com.codecool.javaebremek.model.AnimalSummary;
+import com.codecool.javaebremek.model.BulkDeleteRequest;
+import com.codecool.javaebremek.model.BulkDeleteResult;
+import com.codecool.javaebremek.model.ChangeEvent;
+import com.codecool.javaebremek.model.EntityNames;
+import com.codecool.javaebremek.model.LookupResult;
+import com.codecool.javaebremek.model.DependentPolicy;
 import com.codecool.javaebremek.model.Vet;
+import com.codecool.javaebremek.paging.KeysetCursor;
+import com.codecool.javaebremek.paging.KeysetPage;
+import com.codecool.javaebremek.paging.PageSizeLimits;
+import com.codecool.javaebremek.patch.MergePatch;
+import com.codecool.javaebremek.patch.PatchResult;
+import com.codecool.javaebremek.repository.AnimalRepository;
 import com.codecool.javaebremek.repository.VetRepository;
+import com.codecool.javaebremek.search.SearchIndexes;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 public class VetService {
@@ -15,38 +49,227 @@ public class VetService {
     @Autowired
     private VetRepository vetRepository;
 
-    public List<Vet> findAll() {
-        return vetRepository.findAll();
+    @Autowired
+    private AnimalService animalService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Value("${remek.delete.dependents:reject}")
+    private DependentPolicy defaultPolicy;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private PageSizeLimits pageSizeLimits;
+
+    @Autowired
+    private SearchIndexes searchIndexes;
+
+    @Autowired
+    private Outbox outbox;
+
+    @Autowired
+    private SingleFlight<RoutedKey<Long>, Optional<Vet>> vetLoads;
+
+    @Autowired
+    private MergePatch mergePatch;
+
+    @Autowired
+    private IdLookup idLookup;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public KeysetPage<Vet> findAll(String cursor, Integer size) {
+        int limit = pageSizeLimits.resolve(size);
+        List<Vet> rows = vetRepository.findByIdGreaterThanOrderByIdAsc(KeysetCursor.decode(cursor), KeysetPage.probe(limit));
+        return KeysetPage.of(rows, limit, Vet::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public LookupResult<Vet> findAllById(List<Long> ids) {
+        return idLookup.find(ids, vetRepository::findAllById, Vet::getId);
     }
 
+    // Rows are detached once written, so the persistence context does not grow with the table.
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Vet> action) {
+        try (Stream<Vet> rows = vetRepository.streamAllByOrderByIdAsc()) {
+            rows.forEach(vet -> {
+                action.accept(vet);
+                entityManager.detach(vet);
+            });
+        }
+    }
+
+    // Reads only the maintained counters; no animal rows are touched.
+    @Transactional(readOnly = true)
+    public KeysetPage<AnimalCount> findAnimalCounts(String cursor, Integer size) {
+        int limit = pageSizeLimits.resolve(size);
+        List<AnimalCount> rows = vetRepository.findAnimalCountsByIdGreaterThan(KeysetCursor.decode(cursor), KeysetPage.probe(limit));
+        return KeysetPage.of(rows, limit, AnimalCount::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Vet> search(String query, Integer limit) {
+        List<Long> ids = searchIndexes.vets().search(query, searchIndexes.resolveLimit(limit));
+        return SearchIndexes.inRankOrder(ids, vetRepository.findAllById(ids), Vet::getId);
+    }
+
+    @Transactional
     public Vet add(Vet vet) {
         vet.setId(null);
-        return save(vet);
+        vet.setVersion(null);
+        Vet saved = save(vet);
+        outbox.record(EntityNames.VETS, saved.getId(), ChangeEvent.Operation.CREATED, saved.getVersion());
+        indexAfterCommit(saved);
+        return saved;
+    }
+
+    // A batch request keeps one open-in-view EntityManager across all its chunks; clearing it keeps the heap flat.
+    @Transactional
+    public List<Vet> addAll(List<Vet> vets) {
+        vets.forEach(vet -> {
+            vet.setId(null);
+            vet.setVersion(null);
+        });
+        List<Vet> saved = vetRepository.saveAll(vets);
+        outbox.recordAll(EntityNames.VETS, saved, Vet::getId, Vet::getVersion, ChangeEvent.Operation.CREATED);
+        saved.forEach(this::indexAfterCommit);
+        entityManager.flush();
+        entityManager.clear();
+        return saved;
     }
 
+    @Transactional
     public Vet updateById(Long id, Vet vet) {
-        if (vetRepository.existsById(id)) {
-            vet.setId(id);
-            return save(vet);
-        } else {
+        // One statement either way: a versioned write knows the version it produces, an unversioned one gets it
+        // back from the update itself.
+        Long version = vet.getVersion();
+        Long updated = version == null
+                ? vetRepository.updateByIdReturningVersion(id, vet.getName()).orElse(null)
+                : vetRepository.updateByIdAndVersion(id, vet.getName(), version) == 0 ? null : version + 1;
+        if (updated == null) {
+            if (version != null && vetRepository.existsById(id)) {
+                throw new ObjectOptimisticLockingFailureException(Vet.class, id);
+            }
             throw new RuntimeException(
                     String.format("Can not be updated, because the id does not exist", id));
         }
+        vet.setId(id);
+        vet.setVersion(updated);
+        outbox.record(EntityNames.VETS, id, ChangeEvent.Operation.UPDATED, vet.getVersion());
+        refreshAfterCommit(vet);
+        return vet;
+    }
+
+    // Only a changed name is written, and with @DynamicUpdate only its column; an unchanged patch writes nothing.
+    @Transactional
+    public PatchResult<Vet> patchById(Long id, JsonNode patch, Long expectedVersion) {
+        Vet vet = vetRepository.findById(id).orElseThrow(() -> new RuntimeException(
+                String.format("Can not be patched, because the id %d does not exist", id)));
+        Vet patched = mergePatch.apply(vet, patch, Vet.class);
+        MergePatch.requireVersion(Vet.class, id, expectedVersion == null ? patched.getVersion() : expectedVersion, vet.getVersion());
+        if (Objects.equals(vet.getName(), patched.getName())) {
+            return new PatchResult<>(vet, false);
+        }
+        vet.setName(patched.getName());
+        vetRepository.flush();
+        outbox.record(EntityNames.VETS, id, ChangeEvent.Operation.UPDATED, vet.getVersion());
+        refreshAfterCommit(vet);
+        return new PatchResult<>(vet, true);
+    }
+
+    private void indexAfterCommit(Vet vet) {
+        Long id = vet.getId();
+        long version = vet.getVersion();
+        String name = vet.getName();
+        searchIndexes.afterCommit(() -> searchIndexes.vets().put(id, version, name));
+    }
+
+    // The cached row is dropped only once the write has committed; an eviction that ran earlier would let a
+    // concurrent read put the old row back before the commit.
+    private void refreshAfterCommit(Vet vet) {
+        Long id = vet.getId();
+        long version = vet.getVersion();
+        String name = vet.getName();
+        Cache cache = cacheManager.getCache(CacheConfig.VETS);
+        searchIndexes.afterCommit(() -> {
+            searchIndexes.vets().put(id, version, name);
+            cache.evict(id);
+        });
     }
 
     private Vet save(Vet vet) {
         return vetRepository.save(vet);
     }
 
+    // No service transaction here: callers waiting on another request's load must not hold a pool connection.
+    // Misses load from the primary even for unpinned callers, since what they load is cached: a row from a lagging
+    // replica would outlive the after-commit eviction of the write it is missing.
+    @Cacheable(cacheNames = CacheConfig.VETS, key = "#id", condition = CacheConfig.UNPINNED, unless = "#result == null")
     public Optional<Vet> findById(Long id) {
-        return vetRepository.findById(id);
+        return ReadYourWritesFilter.onPrimary(() -> vetLoads.load(RoutedKey.of(id), () -> vetRepository.findById(id)));
     }
 
+    @Transactional
     public void deleteById(Long id) {
-        vetRepository.deleteById(id);
+        deleteById(id, defaultPolicy);
+    }
+
+    @Transactional
+    public void deleteById(Long id, DependentPolicy policy) {
+        if (deleteLocked(vetRepository.lockIdsByIdIn(List.of(id)), policy).getDeleted() == 0) {
+            throw new RuntimeException(String.format("Can not be deleted, because the id %d does not exist", id));
+        }
+    }
+
+    @Transactional
+    public BulkDeleteResult deleteAll(BulkDeleteRequest request, DependentPolicy policy) {
+        List<Long> ids = Boolean.TRUE.equals(request.getWithoutAnimals())
+                ? vetRepository.lockIdsWithoutAnimals()
+                : idLookup.selectInChunks(idLookup.distinct(request.getIds()), vetRepository::lockIdsByIdIn);
+        return deleteLocked(ids, policy == null ? defaultPolicy : policy);
+    }
+
+    // Each step is one set-based statement per id chunk; a rejected delete surfaces like the foreign key violation it prevents.
+    private BulkDeleteResult deleteLocked(List<Long> ids, DependentPolicy policy) {
+        if (ids.isEmpty()) {
+            return new BulkDeleteResult(0, 0, 0);
+        }
+        List<Long> animals = idLookup.selectInChunks(ids, animalRepository::lockIdsByVetIdIn);
+        int detached = 0;
+        int cascaded = 0;
+        if (!animals.isEmpty()) {
+            switch (policy) {
+                case DETACH:
+                    detached = animalService.detachFromDeletedVets(animals);
+                    break;
+                case CASCADE:
+                    cascaded = animalService.deleteLocked(animals);
+                    break;
+                default:
+                    throw new DataIntegrityViolationException(
+                            String.format("%d animals still reference the vets being deleted", animals.size()));
+            }
+        }
+        int deleted = idLookup.updateInChunks(ids, vetRepository::deleteByIdIn);
+        outbox.recordAll(EntityNames.VETS, ids, Function.identity(), id -> null, ChangeEvent.Operation.DELETED);
+        Cache cache = cacheManager.getCache(CacheConfig.VETS);
+        searchIndexes.afterCommit(() -> ids.forEach(id -> {
+            searchIndexes.vets().remove(id);
+            cache.evict(id);
+        }));
+        return new BulkDeleteResult(deleted, detached, cascaded);
     }
 
-    public List<Animal> getAnimalsByVetsId(Long vetId) {
-        return vetRepository.findById(vetId).orElseThrow().getAnimals();
+    @Transactional(readOnly = true)
+    public KeysetPage<AnimalSummary> getAnimalsByVetsId(Long vetId, String cursor, Integer size) {
+        int limit = pageSizeLimits.resolve(size);
+        List<AnimalSummary> rows = animalRepository.findSummariesByVetId(vetId, KeysetCursor.decode(cursor), KeysetPage.probe(limit));
+        return KeysetPage.of(rows, limit, AnimalSummary::getId);
     }
 }
@@ -0,0 +1,46 @@
+package com.codecool.javaebremek.stats;
+
+import com.codecool.javaebremek.metrics.EntityTags;
+import com.codecool.javaebremek.model.EntityNames;
+import com.codecool.javaebremek.repository.OwnerRepository;
+import com.codecool.javaebremek.repository.VetRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+// Delta updates keep the counters exact in normal operation; this recomputes them from the animal table
+// and repairs any row that drifted, e.g. after manual SQL or a restore.
+@Component
+public class AnimalCountReconciler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AnimalCountReconciler.class);
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private VetRepository vetRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Scheduled(initialDelayString = "${remek.stats.reconcile-interval-ms:3600000}",
+            fixedDelayString = "${remek.stats.reconcile-interval-ms:3600000}")
+    @Transactional
+    public int reconcile() {
+        return repaired(EntityNames.OWNERS, ownerRepository.reconcileAnimalCounts())
+                + repaired(EntityNames.VETS, vetRepository.reconcileAnimalCounts());
+    }
+
+    private int repaired(String entity, int rows) {
+        if (rows > 0) {
+            LOG.warn("Repaired {} drifted animal counters on {}", rows, entity);
+            meterRegistry.counter("remek.stats.repaired", EntityTags.NAME, entity).increment(rows);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,88 @@
+package com.codecool.javaebremek.streaming;
+
+import com.codecool.javaebremek.batch.BatchInserter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+@Component
+public class JsonStreamer {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${remek.streaming.flush-rows:500}")
+    private int flushRows;
+
+    // A source pushes every row to the given consumer, typically a service method reading a repository Stream.
+    public <T> ResponseEntity<StreamingResponseBody> jsonArray(Consumer<Consumer<T>> source) {
+        return stream(MediaType.APPLICATION_JSON, true, source);
+    }
+
+    public <T> ResponseEntity<StreamingResponseBody> ndjson(Consumer<Consumer<T>> source) {
+        return stream(BatchInserter.NDJSON, false, source);
+    }
+
+    // Rows are serialized one at a time and flushed every flushRows, so neither the list nor the body is held in memory.
+    private <T> ResponseEntity<StreamingResponseBody> stream(MediaType contentType, boolean array, Consumer<Consumer<T>> source) {
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .setRootValueSeparator(null);
+            ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            if (array) {
+                generator.writeStartArray();
+            }
+            try {
+                source.accept(new RowWriter<T>(generator, writer, array));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (array) {
+                generator.writeEndArray();
+            }
+            generator.flush();
+        };
+        return ResponseEntity.ok().contentType(contentType).body(body);
+    }
+
+    private class RowWriter<T> implements Consumer<T> {
+
+        private final JsonGenerator generator;
+        private final ObjectWriter writer;
+        private final boolean array;
+        private int written;
+
+        private RowWriter(JsonGenerator generator, ObjectWriter writer, boolean array) {
+            this.generator = generator;
+            this.writer = writer;
+            this.array = array;
+        }
+
+        @Override
+        public void accept(T row) {
+            try {
+                writer.writeValue(generator, row);
+                if (!array) {
+                    generator.writeRaw('\n');
+                }
+                if (++written % flushRows == 0) {
+                    generator.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
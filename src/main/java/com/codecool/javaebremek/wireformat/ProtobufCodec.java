@@ -0,0 +1,143 @@
+package com.codecool.javaebremek.wireformat;
+
+import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.model.AnimalCount;
+import com.codecool.javaebremek.model.AnimalSummary;
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.model.Vet;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Protobuf encoding of the model classes with schemas generated from their Jackson view, so the fields match the JSON.
+// Protobuf has no top-level arrays: a list is written as length-delimited messages, as writeDelimitedTo/parseDelimitedFrom do.
+public class ProtobufCodec {
+
+    public static final Map<String, Class<?>> TYPES = types();
+
+    private final ProtobufMapper mapper = new ProtobufMapper();
+    private final Map<Class<?>, ProtobufSchema> schemas = new ConcurrentHashMap<>();
+
+    private static Map<String, Class<?>> types() {
+        Map<String, Class<?>> types = new LinkedHashMap<>();
+        types.put("animals", Animal.class);
+        types.put("animal-summaries", AnimalSummary.class);
+        types.put("animal-counts", AnimalCount.class);
+        types.put("owners", Owner.class);
+        types.put("vets", Vet.class);
+        return Collections.unmodifiableMap(types);
+    }
+
+    public boolean supports(Class<?> type) {
+        return modelClass(type) != null;
+    }
+
+    // The .proto source for one model class, including messages for nested types such as Animal's owner and vet.
+    public String proto(Class<?> type) {
+        return schema(type).getSource().toString();
+    }
+
+    public void write(Object value, OutputStream out) throws IOException {
+        if (value instanceof Optional) {
+            Optional<?> optional = (Optional<?>) value;
+            if (optional.isEmpty()) {
+                return;
+            }
+            value = optional.get();
+        }
+        if (value instanceof Collection) {
+            for (Object item : (Collection<?>) value) {
+                byte[] message = encode(item);
+                writeVarint(out, message.length);
+                out.write(message);
+            }
+        } else {
+            out.write(encode(value));
+        }
+    }
+
+    public <T> T read(InputStream in, Class<T> type) throws IOException {
+        return mapper.readerFor(type).with(schema(type)).readValue(in.readAllBytes());
+    }
+
+    public <T> List<T> readList(InputStream in, Class<T> type) throws IOException {
+        List<T> items = new ArrayList<>();
+        int length;
+        while ((length = readVarint(in)) >= 0) {
+            byte[] message = in.readNBytes(length);
+            if (message.length < length) {
+                throw new EOFException(String.format("Truncated message: expected %d bytes, got %d", length, message.length));
+            }
+            items.add(mapper.readerFor(type).with(schema(type)).readValue(message));
+        }
+        return items;
+    }
+
+    private byte[] encode(Object item) throws IOException {
+        return mapper.writer(schema(item.getClass())).writeValueAsBytes(item);
+    }
+
+    private ProtobufSchema schema(Class<?> type) {
+        Class<?> modelClass = modelClass(type);
+        if (modelClass == null) {
+            throw new IllegalArgumentException(String.format("No protobuf schema for %s", type.getName()));
+        }
+        return schemas.computeIfAbsent(modelClass, key -> {
+            try {
+                return mapper.generateSchemaFor(key);
+            } catch (JsonMappingException e) {
+                throw new IllegalStateException(String.format("Could not generate a protobuf schema for %s", key.getName()), e);
+            }
+        });
+    }
+
+    // Walks up from Hibernate proxy subclasses to the mapped model class.
+    private static Class<?> modelClass(Class<?> type) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            if (TYPES.containsValue(current)) {
+                return current;
+            }
+        }
+        return null;
+    }
+
+    private static void writeVarint(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    // -1 at a clean end of stream, between two messages.
+    private static int readVarint(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                if (shift == 0) {
+                    return -1;
+                }
+                throw new EOFException("Truncated length prefix");
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed length prefix");
+    }
+}
@@ -0,0 +1,91 @@
+package com.codecool.javaebremek.wireformat;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+// Reads and writes the model classes, lists of them and Optional results as application/x-protobuf.
+public class ProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final String PROTOBUF_VALUE = "application/x-protobuf";
+    public static final MediaType PROTOBUF = MediaType.parseMediaType(PROTOBUF_VALUE);
+
+    private final ProtobufCodec codec;
+
+    public ProtobufHttpMessageConverter(ProtobufCodec codec) {
+        super(PROTOBUF);
+        this.codec = codec;
+    }
+
+    // Only the class is known here, e.g. when media types are listed for a body; canWrite(Type, ...) checks the elements.
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return codec.supports(clazz) || Collection.class.isAssignableFrom(clazz) || Optional.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return canRead(mediaType) && readableType(ResolvableType.forType(type)) != null;
+    }
+
+    // A ResponseEntity<?> body is only known by its runtime class, so a list or Optional there has no element type to
+    // check and is left to the other converters; handlers that serve model lists declare the element type.
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        ResolvableType declared = type == null ? ResolvableType.NONE : ResolvableType.forType(type);
+        ResolvableType resolved = declared.resolve(Object.class) == Object.class ? ResolvableType.forClass(clazz) : declared;
+        return canWrite(mediaType) && writableType(resolved) != null;
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        ResolvableType resolved = ResolvableType.forType(type);
+        try {
+            if (List.class.isAssignableFrom(resolved.toClass())) {
+                return codec.readList(inputMessage.getBody(), readableType(resolved));
+            }
+            return codec.read(inputMessage.getBody(), resolved.toClass());
+        } catch (IOException | IllegalArgumentException e) {
+            throw new HttpMessageNotReadableException("Could not read protobuf message: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        try {
+            codec.write(value, outputMessage.getBody());
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotWritableException("Could not write protobuf message: " + e.getMessage(), e);
+        }
+    }
+
+    private Class<?> writableType(ResolvableType type) {
+        Class<?> target = type.toClass();
+        if (Collection.class.isAssignableFrom(target)) {
+            target = type.asCollection().resolveGeneric();
+        } else if (Optional.class.isAssignableFrom(target)) {
+            target = type.as(Optional.class).resolveGeneric();
+        }
+        return target != null && codec.supports(target) ? target : null;
+    }
+
+    private Class<?> readableType(ResolvableType type) {
+        Class<?> target = List.class.isAssignableFrom(type.toClass()) ? type.getGeneric(0).toClass() : type.toClass();
+        return codec.supports(target) ? target : null;
+    }
+}
@@ -0,0 +1,24 @@
+package com.codecool.javaebremek.wireformat;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+// CBOR (application/cbor) and Smile (application/x-jackson-smile) come with Spring MVC once their Jackson modules are
+// on the classpath. Protobuf is appended last, so JSON stays the answer to requests without a specific Accept header.
+@Configuration
+public class WireFormatConfig implements WebMvcConfigurer {
+
+    @Bean
+    public ProtobufCodec protobufCodec() {
+        return new ProtobufCodec();
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new ProtobufHttpMessageConverter(protobufCodec()));
+    }
+}
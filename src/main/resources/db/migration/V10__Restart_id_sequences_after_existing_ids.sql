@@ -0,0 +1,5 @@
+-- V5 started the sequences at 1, below the ids IDENTITY had already assigned. The pooled generator takes
+-- next_val - 49 .. next_val, so each sequence restarts one allocation block above the highest id it may have handed out.
+alter sequence vet_seq restart with (select greatest(coalesce(max(id), 0), (select current_value from information_schema.sequences where sequence_name = 'VET_SEQ')) + 50 from vet);
+alter sequence owner_seq restart with (select greatest(coalesce(max(id), 0), (select current_value from information_schema.sequences where sequence_name = 'OWNER_SEQ')) + 50 from owner);
+alter sequence animal_seq restart with (select greatest(coalesce(max(id), 0), (select current_value from information_schema.sequences where sequence_name = 'ANIMAL_SEQ')) + 50 from animal);
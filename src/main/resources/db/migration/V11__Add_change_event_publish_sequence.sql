@@ -0,0 +1,9 @@
+alter table change_event add column publish_sequence bigint;
+update change_event set publish_sequence = id;
+create unique index change_event_publish_sequence on change_event (publish_sequence);
+
+create table change_relay (
+                              id int not null,
+                              primary key (id)
+);
+insert into change_relay (id) values (1);
@@ -0,0 +1,2 @@
+create index idx_animal_owner_id on animal (owner_id, id);
+create index idx_animal_vet_id on animal (vet_id, id);
@@ -0,0 +1,3 @@
+create sequence vet_seq start with 1 increment by 50;
+create sequence owner_seq start with 1 increment by 50;
+create sequence animal_seq start with 1 increment by 50;
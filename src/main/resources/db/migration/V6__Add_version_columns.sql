@@ -0,0 +1,3 @@
+alter table vet add column version bigint default 0 not null;
+alter table owner add column version bigint default 0 not null;
+alter table animal add column version bigint default 0 not null;
@@ -0,0 +1,4 @@
+alter table owner add column animal_count bigint default 0 not null;
+alter table vet add column animal_count bigint default 0 not null;
+update owner o set animal_count = (select count(*) from animal a where a.owner_id = o.id);
+update vet v set animal_count = (select count(*) from animal a where a.vet_id = v.id);
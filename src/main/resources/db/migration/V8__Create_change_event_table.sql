@@ -0,0 +1,9 @@
+create table change_event (
+                              id bigint generated by default as identity,
+                              entity varchar(16) not null,
+                              entity_id bigint not null,
+                              operation varchar(16) not null,
+                              version bigint,
+                              created_at timestamp not null,
+                              primary key (id)
+);
@@ -0,0 +1,6 @@
+create table hot_key (
+                         entity varchar(16) not null,
+                         entity_id bigint not null,
+                         estimate bigint not null,
+                         primary key (entity, entity_id)
+);
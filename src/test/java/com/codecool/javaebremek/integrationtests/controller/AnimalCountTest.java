@@ -0,0 +1,123 @@
+package com.codecool.javaebremek.integrationtests.controller;
+
+import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.model.AnimalCount;
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.model.Vet;
+import com.codecool.javaebremek.stats.AnimalCountReconciler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+public class AnimalCountTest {
+
+    @LocalServerPort
+    private int port;
+    private String baseUrl;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AnimalCountReconciler reconciler;
+
+    private Owner joe;
+    private Owner jan;
+    private Vet jim;
+
+    @BeforeEach
+    public void setUp() {
+        this.baseUrl = "http://localhost:" + port;
+        joe = testRestTemplate.postForObject(baseUrl + "/owners", new Owner(null, "Joe", null), Owner.class);
+        jan = testRestTemplate.postForObject(baseUrl + "/owners", new Owner(null, "Jan", null), Owner.class);
+        jim = testRestTemplate.postForObject(baseUrl + "/vets", new Vet(null, "Jim", null), Vet.class);
+    }
+
+    @Test
+    public void addAnimals_incrementsOwnerAndVetCounters() {
+        addAnimal("Jax", joe, jim);
+        addAnimal("Jay", joe, null);
+        addAnimal("Joy", null, jim);
+
+        assertEquals(Map.of(joe.getId(), 2L, jan.getId(), 0L), counts("/owners/stats"));
+        assertEquals(Map.of(jim.getId(), 2L), counts("/vets/stats"));
+    }
+
+    @Test
+    public void addBatch_countsEveryAnimal() {
+        String body = String.format("[{\"name\":\"A\",\"owner\":{\"id\":%d}},{\"name\":\"B\",\"owner\":{\"id\":%d}},"
+                + "{\"name\":\"C\",\"owner\":{\"id\":%d},\"vet\":{\"id\":%d}}]", joe.getId(), joe.getId(), jan.getId(), jim.getId());
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        testRestTemplate.postForObject(baseUrl + "/animals/batch", new HttpEntity<>(body, headers), String.class);
+
+        assertEquals(Map.of(joe.getId(), 2L, jan.getId(), 1L), counts("/owners/stats"));
+        assertEquals(Map.of(jim.getId(), 1L), counts("/vets/stats"));
+    }
+
+    @Test
+    public void reassignAnimal_movesCountBetweenOwnersAndVets() {
+        Animal animal = addAnimal("Jax", joe, jim);
+        Animal update = new Animal(null, "Jax", new Owner(jan.getId(), null, null), null);
+        testRestTemplate.exchange(baseUrl + "/animals/" + animal.getId(), HttpMethod.PUT, new HttpEntity<>(update), Animal.class);
+
+        assertEquals(Map.of(joe.getId(), 0L, jan.getId(), 1L), counts("/owners/stats"));
+        assertEquals(Map.of(jim.getId(), 0L), counts("/vets/stats"));
+    }
+
+    @Test
+    public void deleteAnimal_decrementsCounters() {
+        Animal animal = addAnimal("Jax", joe, jim);
+        addAnimal("Jay", joe, jim);
+        testRestTemplate.delete(baseUrl + "/animals/" + animal.getId());
+
+        assertEquals(1L, counts("/owners/stats").get(joe.getId()));
+        assertEquals(1L, counts("/vets/stats").get(jim.getId()));
+    }
+
+    @Test
+    public void reconcile_repairsDriftedCounters() {
+        addAnimal("Jax", joe, jim);
+        jdbcTemplate.update("update owner set animal_count = 7");
+        jdbcTemplate.update("update vet set animal_count = 0");
+
+        assertEquals(3, reconciler.reconcile());
+        assertEquals(Map.of(joe.getId(), 1L, jan.getId(), 0L), counts("/owners/stats"));
+        assertEquals(Map.of(jim.getId(), 1L), counts("/vets/stats"));
+        assertEquals(0, reconciler.reconcile());
+    }
+
+    private Animal addAnimal(String name, Owner owner, Vet vet) {
+        Animal animal = new Animal(null, name,
+                owner == null ? null : new Owner(owner.getId(), null, null),
+                vet == null ? null : new Vet(vet.getId(), null, null));
+        return testRestTemplate.postForObject(baseUrl + "/animals", animal, Animal.class);
+    }
+
+    private Map<Long, Long> counts(String path) {
+        return Arrays.stream(testRestTemplate.getForObject(baseUrl + path, AnimalCount[].class))
+                .collect(Collectors.toMap(AnimalCount::getId, AnimalCount::getAnimalCount));
+    }
+}
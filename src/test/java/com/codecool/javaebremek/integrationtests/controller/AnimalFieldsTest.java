@@ -0,0 +1,121 @@
+package com.codecool.javaebremek.integrationtests.controller;
+
+import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.model.Vet;
+import com.codecool.javaebremek.paging.KeysetPage;
+import com.codecool.javaebremek.repository.AnimalRepository;
+import com.codecool.javaebremek.repository.OwnerRepository;
+import com.codecool.javaebremek.repository.VetRepository;
+import com.codecool.javaebremek.testsupport.QueryCounter;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+public class AnimalFieldsTest {
+
+    @LocalServerPort
+    private int port;
+    private String baseUrl;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private VetRepository vetRepository;
+
+    private Owner owner;
+    private Animal animal;
+
+    @BeforeEach
+    public void setUp() {
+        this.baseUrl = "http://localhost:" + port;
+        owner = ownerRepository.save(new Owner(null, "Joe", null));
+        Vet vet = vetRepository.save(new Vet(null, "Jim", null));
+        animal = animalRepository.save(new Animal(null, "Jax", owner, vet));
+        animalRepository.save(new Animal(null, "Jed", null, null));
+        QueryCounter.reset();
+    }
+
+    @Test
+    public void getAnimals_withFields_selectsOnlyThoseColumnsWithoutJoin() {
+        JsonNode animals = testRestTemplate.getForObject(baseUrl + "/animals?fields=id,name,owner.id", JsonNode.class);
+
+        assertEquals(2, animals.size());
+        assertEquals(List.of("id", "name", "owner"), fieldNames(animals.get(0)));
+        assertEquals(owner.getId(), animals.get(0).get("owner").get("id").asLong());
+        assertTrue(animals.get(1).get("owner").isNull());
+        QueryCounter.assertStatementCount(1);
+        String sql = QueryCounter.statements().get(0).toLowerCase();
+        assertFalse(sql.contains(" join "), sql);
+        assertFalse(sql.contains("version"), sql);
+    }
+
+    @Test
+    public void getAnimals_withExpand_nestsOwnerAndVetInSingleStatement() {
+        JsonNode animals = testRestTemplate.getForObject(baseUrl + "/animals?expand=owner,vet", JsonNode.class);
+
+        assertEquals(List.of("id", "name", "version", "owner", "vet"), fieldNames(animals.get(0)));
+        assertEquals("Joe", animals.get(0).get("owner").get("name").asText());
+        assertEquals("Jim", animals.get(0).get("vet").get("name").asText());
+        assertTrue(animals.get(1).get("vet").isNull());
+        QueryCounter.assertStatementCount(1);
+    }
+
+    @Test
+    public void getAnimals_withFieldsAndSize_pagesByCursor() {
+        ResponseEntity<JsonNode> first = testRestTemplate.getForEntity(baseUrl + "/animals?fields=name&size=1", JsonNode.class);
+        String cursor = first.getHeaders().getFirst(KeysetPage.NEXT_CURSOR_HEADER);
+        assertNotNull(cursor);
+        assertEquals(List.of("name"), fieldNames(first.getBody().get(0)));
+
+        JsonNode second = testRestTemplate.getForObject(baseUrl + "/animals?fields=name&size=1&cursor=" + cursor, JsonNode.class);
+        assertEquals("Jed", second.get(0).get("name").asText());
+    }
+
+    @Test
+    public void getAnimalById_withFields_returnsSelectedFieldsOnly() {
+        JsonNode result = testRestTemplate.getForObject(baseUrl + "/animals/" + animal.getId() + "?fields=name,vet.name", JsonNode.class);
+
+        assertEquals(List.of("name", "vet"), fieldNames(result));
+        assertEquals(List.of("name"), fieldNames(result.get("vet")));
+        assertEquals("Jim", result.get("vet").get("name").asText());
+    }
+
+    @Test
+    public void getAnimals_withUnknownField_returnsBadRequest() {
+        ResponseEntity<String> response = testRestTemplate.getForEntity(baseUrl + "/animals?fields=id,owner.password", String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    private static List<String> fieldNames(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+}
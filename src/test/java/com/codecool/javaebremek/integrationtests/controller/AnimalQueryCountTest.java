@@ -0,0 +1,104 @@
+package com.codecool.javaebremek.integrationtests.controller;
+
+import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.model.Vet;
+import com.codecool.javaebremek.repository.AnimalRepository;
+import com.codecool.javaebremek.repository.OwnerRepository;
+import com.codecool.javaebremek.repository.VetRepository;
+import com.codecool.javaebremek.testsupport.QueryCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+public class AnimalQueryCountTest {
+
+    @LocalServerPort
+    private int port;
+    private String baseUrl;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private VetRepository vetRepository;
+
+    private Owner owner;
+    private Owner otherOwner;
+    private Animal animal;
+
+    @BeforeEach
+    public void setUp() {
+        this.baseUrl = "http://localhost:" + port;
+        owner = ownerRepository.save(new Owner(null, "Joe", null));
+        otherOwner = ownerRepository.save(new Owner(null, "Jan", null));
+        Vet vet = vetRepository.save(new Vet(null, "Jim", null));
+        Vet otherVet = vetRepository.save(new Vet(null, "Jun", null));
+        animal = animalRepository.save(new Animal(null, "Jax", owner, vet));
+        animalRepository.save(new Animal(null, "Jay", otherOwner, otherVet));
+        animalRepository.save(new Animal(null, "Joy", owner, otherVet));
+        animalRepository.save(new Animal(null, "Jed", null, null));
+        QueryCounter.reset();
+    }
+
+    @Test
+    public void getAnimals_summaryView_runsSingleStatement() {
+        Animal[] animals = testRestTemplate.getForObject(baseUrl + "/animals", Animal[].class);
+        assertEquals(4, animals.length);
+        QueryCounter.assertStatementCount(1);
+    }
+
+    @Test
+    public void getAnimals_fullView_fetchesOwnersAndVetsInSingleStatement() {
+        Animal[] animals = testRestTemplate.getForObject(baseUrl + "/animals?view=full", Animal[].class);
+        assertEquals(4, animals.length);
+        assertEquals("Joe", animals[0].getOwner().getName());
+        QueryCounter.assertStatementCount(1);
+    }
+
+    @Test
+    public void getAnimalById_fetchesOwnerAndVetInSingleStatement() {
+        Animal result = testRestTemplate.getForObject(baseUrl + "/animals/" + animal.getId(), Animal.class);
+        assertEquals("Jim", result.getVet().getName());
+        QueryCounter.assertStatementCount(1);
+    }
+
+    @Test
+    public void updateAnimal_withVersion_locksRowThenUpdatesInTwoStatements() {
+        Animal update = new Animal(null, "Max", new Owner(owner.getId(), null, null), new Vet(animal.getVet().getId(), null, null));
+        update.setVersion(animal.getVersion());
+        testRestTemplate.put(baseUrl + "/animals/" + animal.getId(), update);
+        QueryCounter.assertStatementCount(2);
+        assertEquals("Max", animalRepository.findById(animal.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    public void updateAnimal_reassignedOwner_addsOneCounterUpdatePerSide() {
+        Animal update = new Animal(null, "Jax", new Owner(otherOwner.getId(), null, null), new Vet(animal.getVet().getId(), null, null));
+        testRestTemplate.put(baseUrl + "/animals/" + animal.getId(), update);
+        QueryCounter.assertStatementCount(4);
+    }
+
+    @Test
+    public void getAnimalsByOwnersId_runsSingleStatement() {
+        Animal[] animals = testRestTemplate.getForObject(baseUrl + "/owners/" + owner.getId() + "/animals", Animal[].class);
+        assertEquals(2, animals.length);
+        QueryCounter.assertStatementCount(1);
+    }
+}
@@ -1,6 +1,12 @@
 package com.codecool.javaebremek.integrationtests.controller;
 
+import com.codecool.javaebremek.batch.BatchInserter;
 import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.model.AnimalSummary;
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.model.Vet;
+import com.codecool.javaebremek.paging.KeysetPage;
+import com.codecool.javaebremek.testsupport.QueryCounter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,11 +17,17 @@ import org.springframework.http.*;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -75,6 +87,108 @@ public class AnimalTest {
 
     }
 
+    @Test
+    public void addAndUpdateAnimal_referencingOwnerAndVetById_assignsThem() {
+        String rootUrl = "http://localhost:" + port;
+        Owner owner = testRestTemplate.postForObject(rootUrl + "/owners", new Owner(null, "Joe", null), Owner.class);
+        Vet vet = testRestTemplate.postForObject(rootUrl + "/vets", new Vet(null, "Jim", null), Vet.class);
+        Vet otherVet = testRestTemplate.postForObject(rootUrl + "/vets", new Vet(null, "Jun", null), Vet.class);
+
+        Animal testAnimal = new Animal(null, "Jax", new Owner(owner.getId(), null, null), new Vet(vet.getId(), null, null));
+        Animal added = testRestTemplate.postForObject(baseUrl, testAnimal, Animal.class);
+        testAnimal.setVet(new Vet(otherVet.getId(), null, null));
+        testRestTemplate.put(baseUrl + "/" + added.getId(), testAnimal);
+
+        Animal result = testRestTemplate.getForObject(baseUrl + "/" + added.getId(), Animal.class);
+        assertEquals("Joe", result.getOwner().getName());
+        assertEquals("Jun", result.getVet().getName());
+    }
+
+    @Test
+    public void updateAnimal_withStaleVersion_returnsConflict() {
+        Animal added = testRestTemplate.postForObject(baseUrl, new Animal(null, "Jax", null, null), Animal.class);
+        added.setName("Max");
+        ResponseEntity<Animal> firstUpdate = testRestTemplate.exchange(baseUrl + "/" + added.getId(), HttpMethod.PUT, createHttpEntityWithMediaTypeJson(added), Animal.class);
+        assertEquals(added.getVersion() + 1, firstUpdate.getBody().getVersion());
+
+        added.setName("Rex");
+        ResponseEntity<Animal> staleUpdate = testRestTemplate.exchange(baseUrl + "/" + added.getId(), HttpMethod.PUT, createHttpEntityWithMediaTypeJson(added), Animal.class);
+        assertEquals(HttpStatus.CONFLICT, staleUpdate.getStatusCode());
+        assertEquals("Max", testRestTemplate.getForObject(baseUrl + "/" + added.getId(), Animal.class).getName());
+    }
+
+    @Test
+    public void getAnimalById_withMatchingIfNoneMatch_returnsNotModified() {
+        Animal added = testRestTemplate.postForObject(baseUrl, new Animal(null, "Jax", null, null), Animal.class);
+        ResponseEntity<Animal> first = testRestTemplate.getForEntity(baseUrl + "/" + added.getId(), Animal.class);
+        String eTag = first.getHeaders().getETag();
+        assertNotNull(eTag);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        QueryCounter.reset();
+        ResponseEntity<String> second = testRestTemplate.exchange(baseUrl + "/" + added.getId(), HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.NOT_MODIFIED, second.getStatusCode());
+        assertNull(second.getBody());
+        assertEquals(eTag, second.getHeaders().getETag());
+        assertTrue(second.getHeaders().getVary().contains(HttpHeaders.ACCEPT));
+        // Only the version probe, not the animal with its owner and vet.
+        QueryCounter.assertStatementCount(1);
+    }
+
+    @Test
+    public void getAnimals_largePage_isCompressedWithWeakETag() throws Exception {
+        List<Animal> batch = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            batch.add(new Animal(null, "Animal number " + i, null, null));
+        }
+        testRestTemplate.postForObject(baseUrl + "/batch", new HttpEntity<>(batch, createJsonHeaders()), String.class);
+
+        // The JDK client leaves Content-Encoding alone, so the test sees what Tomcat actually sent.
+        HttpResponse<byte[]> response = HttpClient.newHttpClient().send(
+                java.net.http.HttpRequest.newBuilder(URI.create(baseUrl + "?size=50"))
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(HttpStatus.OK.value(), response.statusCode());
+        assertEquals("gzip", response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+        String eTag = response.headers().firstValue(HttpHeaders.ETAG).orElse("");
+        assertTrue(eTag.startsWith("W/"), eTag);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        ResponseEntity<String> second = testRestTemplate.exchange(baseUrl + "?size=50", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.NOT_MODIFIED, second.getStatusCode());
+    }
+
+    @Test
+    public void getAnimalById_afterOwnerRenamed_returnsNewETag() {
+        Owner owner = testRestTemplate.postForObject("http://localhost:" + port + "/owners", new Owner(null, "Joe", null), Owner.class);
+        Animal added = testRestTemplate.postForObject(baseUrl, new Animal(null, "Jax", new Owner(owner.getId(), null, null), null), Animal.class);
+        String before = testRestTemplate.getForEntity(baseUrl + "/" + added.getId(), Animal.class).getHeaders().getETag();
+
+        owner.setName("Jim");
+        testRestTemplate.put("http://localhost:" + port + "/owners/" + owner.getId(), owner);
+        String after = testRestTemplate.getForEntity(baseUrl + "/" + added.getId(), Animal.class).getHeaders().getETag();
+        assertNotEquals(before, after);
+    }
+
+    @Test
+    public void updateAnimal_withStaleIfMatch_returnsPreconditionFailed() {
+        Animal added = testRestTemplate.postForObject(baseUrl, new Animal(null, "Jax", null, null), Animal.class);
+        String eTag = testRestTemplate.getForEntity(baseUrl + "/" + added.getId(), Animal.class).getHeaders().getETag();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setIfMatch(eTag);
+
+        ResponseEntity<Animal> firstUpdate = testRestTemplate.exchange(baseUrl + "/" + added.getId(), HttpMethod.PUT, new HttpEntity<>(new Animal(null, "Max", null, null), headers), Animal.class);
+        assertEquals(HttpStatus.OK, firstUpdate.getStatusCode());
+        ResponseEntity<Animal> staleUpdate = testRestTemplate.exchange(baseUrl + "/" + added.getId(), HttpMethod.PUT, new HttpEntity<>(new Animal(null, "Rex", null, null), headers), Animal.class);
+        assertEquals(HttpStatus.PRECONDITION_FAILED, staleUpdate.getStatusCode());
+        assertEquals("Max", testRestTemplate.getForObject(baseUrl + "/" + added.getId(), Animal.class).getName());
+    }
+
     @Test
     public void deleteAnimalById_withSomePostedAnimals_getAllShouldReturnRemainingAnimals() {
         Animal testAnimal1 = new Animal(null, "Jay", null, null);
@@ -94,6 +208,75 @@ public class AnimalTest {
         assertTrue(contain(remainingAnimals, testAnimal3));
     }
 
+    @Test
+    public void getAnimals_withMoreAnimalsThanPageSize_returnsPagesFollowingCursor() {
+        List.of("Jay", "Jim", "Jun").forEach(name -> testRestTemplate.postForObject(baseUrl, new Animal(null, name, null, null), Animal.class));
+
+        ResponseEntity<Animal[]> firstPage = testRestTemplate.getForEntity(baseUrl + "?size=2", Animal[].class);
+        String cursor = firstPage.getHeaders().getFirst(KeysetPage.NEXT_CURSOR_HEADER);
+        assertEquals(2, firstPage.getBody().length);
+        assertNotNull(cursor);
+
+        ResponseEntity<Animal[]> secondPage = testRestTemplate.getForEntity(baseUrl + "?size=2&cursor=" + cursor, Animal[].class);
+        assertEquals(1, secondPage.getBody().length);
+        assertEquals("Jun", secondPage.getBody()[0].getName());
+        assertNull(secondPage.getHeaders().getFirst(KeysetPage.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void streamAnimals_negotiatedFormats_returnEveryAnimal() {
+        List<Animal> batch = List.of(new Animal(null, "Jay", null, null), new Animal(null, "Joe", null, null), new Animal(null, "Jim", null, null));
+        testRestTemplate.postForObject(baseUrl + "/batch", new HttpEntity<>(batch, createJsonHeaders()), String.class);
+
+        HttpHeaders ndjson = new HttpHeaders();
+        ndjson.setAccept(List.of(BatchInserter.NDJSON));
+        ResponseEntity<String> lines = testRestTemplate.exchange(baseUrl + "/stream", HttpMethod.GET, new HttpEntity<>(ndjson), String.class);
+        assertEquals(BatchInserter.NDJSON, lines.getHeaders().getContentType());
+        assertEquals(3, lines.getBody().split("\n").length);
+
+        HttpHeaders json = new HttpHeaders();
+        json.setAccept(List.of(MediaType.APPLICATION_JSON));
+        ResponseEntity<Animal[]> array = testRestTemplate.exchange(baseUrl + "/stream", HttpMethod.GET, new HttpEntity<>(json), Animal[].class);
+        assertEquals(3, array.getBody().length);
+        assertEquals("Jim", array.getBody()[2].getName());
+    }
+
+    @Test
+    public void searchAnimals_afterAddRenameAndDelete_followsWrites() {
+        Animal max = testRestTemplate.postForObject(baseUrl, new Animal(null, "Maxwell", null, null), Animal.class);
+        Animal rex = testRestTemplate.postForObject(baseUrl, new Animal(null, "Big Max", null, null), Animal.class);
+        testRestTemplate.postForObject(baseUrl, new Animal(null, "Jay", null, null), Animal.class);
+
+        AnimalSummary[] found = testRestTemplate.getForObject(baseUrl + "/search?q=max", AnimalSummary[].class);
+        assertEquals(List.of(max.getId(), rex.getId()), List.of(found[0].getId(), found[1].getId()));
+
+        rex.setName("Rex");
+        testRestTemplate.put(baseUrl + "/" + rex.getId(), rex);
+        testRestTemplate.delete(baseUrl + "/" + max.getId());
+        assertEquals(0, testRestTemplate.getForObject(baseUrl + "/search?q=max", AnimalSummary[].class).length);
+        assertEquals("Rex", testRestTemplate.getForObject(baseUrl + "/search?q=re", AnimalSummary[].class)[0].getName());
+    }
+
+    @Test
+    public void addAnimalsInBatch_withOneInvalidAnimal_createsValidAnimalsAndReportsEachItem() {
+        List<Animal> batch = List.of(new Animal(null, "Jay", null, null), new Animal(null, "", null, null), new Animal(null, "Jim", null, null));
+        HttpEntity<List<Animal>> httpEntity = new HttpEntity<>(batch, createJsonHeaders());
+        String results = testRestTemplate.postForObject(baseUrl + "/batch", httpEntity, String.class);
+
+        List<String> lines = List.of(results.split("\n"));
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).contains("\"index\":1,\"status\":\"INVALID\""));
+        assertTrue(lines.get(1).contains("\"index\":0,\"status\":\"CREATED\""));
+        assertTrue(lines.get(2).contains("\"index\":2,\"status\":\"CREATED\""));
+        assertEquals(2, testRestTemplate.getForObject(baseUrl, Animal[].class).length);
+    }
+
+    private HttpHeaders createJsonHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return headers;
+    }
+
     private HttpEntity<Animal> createHttpEntityWithMediaTypeJson(Animal testAnimal) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -0,0 +1,161 @@
+package com.codecool.javaebremek.integrationtests.controller;
+
+import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.model.AnimalCount;
+import com.codecool.javaebremek.model.BulkDeleteRequest;
+import com.codecool.javaebremek.model.BulkDeleteResult;
+import com.codecool.javaebremek.model.ChangeEvent;
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.model.Vet;
+import com.codecool.javaebremek.repository.AnimalRepository;
+import com.codecool.javaebremek.repository.OwnerRepository;
+import com.codecool.javaebremek.testsupport.QueryCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+public class BulkDeleteTest {
+
+    @LocalServerPort
+    private int port;
+    private String baseUrl;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    private Owner joe;
+    private Owner jan;
+    private Vet jim;
+
+    @BeforeEach
+    public void setUp() {
+        this.baseUrl = "http://localhost:" + port;
+        joe = testRestTemplate.postForObject(baseUrl + "/owners", new Owner(null, "Joe", null), Owner.class);
+        jan = testRestTemplate.postForObject(baseUrl + "/owners", new Owner(null, "Jan", null), Owner.class);
+        jim = testRestTemplate.postForObject(baseUrl + "/vets", new Vet(null, "Jim", null), Vet.class);
+        for (String name : List.of("Jax", "Jay", "Joy")) {
+            addAnimal(name, joe, jim);
+        }
+    }
+
+    @Test
+    public void deleteOwnerWithAnimals_defaultPolicy_isRejected() {
+        ResponseEntity<String> response = delete("/owners/" + joe.getId());
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertTrue(ownerRepository.existsById(joe.getId()));
+        assertEquals(3, animalRepository.count());
+    }
+
+    @Test
+    public void deleteOwner_detach_keepsAnimalsWithoutOwner() {
+        testRestTemplate.getForObject(baseUrl + "/owners/" + joe.getId(), Owner.class);
+
+        assertEquals(HttpStatus.OK, delete("/owners/" + joe.getId() + "?dependents=detach").getStatusCode());
+
+        assertNull(testRestTemplate.getForObject(baseUrl + "/owners/" + joe.getId(), Owner.class));
+        assertEquals(3, animalRepository.count());
+        assertTrue(animalRepository.findAll().stream().allMatch(animal -> animal.getOwner() == null));
+        assertEquals(3L, vetCount());
+        ChangeEvent[] events = testRestTemplate.getForObject(baseUrl + "/changes?since=6", ChangeEvent[].class);
+        assertEquals(List.of("animals:UPDATED", "animals:UPDATED", "animals:UPDATED", "owners:DELETED"),
+                Stream.of(events).map(event -> event.getEntity() + ":" + event.getOperation()).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void bulkDeleteOwners_cascade_runsConstantNumberOfStatements() {
+        QueryCounter.reset();
+        BulkDeleteResult result = testRestTemplate.postForObject(baseUrl + "/owners/bulk-delete?dependents=cascade",
+                request(List.of(joe.getId(), jan.getId(), -1L), null, null, null), BulkDeleteResult.class);
+
+        assertEquals(2, result.getDeleted());
+        assertEquals(3, result.getAnimalsDeleted());
+        // lock owners, lock animals, two counter updates, delete animals, delete owners
+        QueryCounter.assertStatementCount(6);
+        assertEquals(0, animalRepository.count());
+        assertEquals(0L, vetCount());
+        assertEquals(0, testRestTemplate.getForObject(baseUrl + "/animals/search?q=jax", Animal[].class).length);
+    }
+
+    @Test
+    public void bulkDeleteAnimals_byVet_updatesOwnerCounters() {
+        addAnimal("Rex", jan, null);
+
+        BulkDeleteResult result = testRestTemplate.postForObject(baseUrl + "/animals/bulk-delete",
+                request(null, null, jim.getId(), null), BulkDeleteResult.class);
+
+        assertEquals(3, result.getDeleted());
+        AnimalCount[] owners = testRestTemplate.getForObject(baseUrl + "/owners/stats", AnimalCount[].class);
+        assertEquals(0L, owners[0].getAnimalCount());
+        assertEquals(1L, owners[1].getAnimalCount());
+    }
+
+    @Test
+    public void bulkDeleteOwners_withoutAnimals_deletesOnlyUnreferenced() {
+        BulkDeleteResult result = testRestTemplate.postForObject(baseUrl + "/owners/bulk-delete",
+                request(null, null, null, true), BulkDeleteResult.class);
+
+        assertEquals(1, result.getDeleted());
+        assertTrue(ownerRepository.existsById(joe.getId()));
+        assertTrue(ownerRepository.findById(jan.getId()).isEmpty());
+    }
+
+    @Test
+    public void bulkDelete_invalidCriteria_returnsBadRequest() {
+        assertEquals(HttpStatus.BAD_REQUEST, testRestTemplate.postForEntity(baseUrl + "/animals/bulk-delete",
+                request(List.of(1L), joe.getId(), null, null), String.class).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, testRestTemplate.postForEntity(baseUrl + "/vets/bulk-delete",
+                request(List.of(), null, null, null), String.class).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, testRestTemplate.postForEntity(baseUrl + "/vets/bulk-delete?dependents=orphan",
+                request(List.of(jim.getId()), null, null, null), String.class).getStatusCode());
+    }
+
+    @Test
+    public void deleteMissingAnimal_returnsNotFound() {
+        assertEquals(HttpStatus.NOT_FOUND, delete("/animals/999").getStatusCode());
+    }
+
+    private ResponseEntity<String> delete(String path) {
+        return testRestTemplate.exchange(baseUrl + path, HttpMethod.DELETE, HttpEntity.EMPTY, String.class);
+    }
+
+    private long vetCount() {
+        return testRestTemplate.getForObject(baseUrl + "/vets/stats", AnimalCount[].class)[0].getAnimalCount();
+    }
+
+    private void addAnimal(String name, Owner owner, Vet vet) {
+        testRestTemplate.postForObject(baseUrl + "/animals", new Animal(null, name,
+                owner == null ? null : new Owner(owner.getId(), null, null),
+                vet == null ? null : new Vet(vet.getId(), null, null)), Animal.class);
+    }
+
+    private static BulkDeleteRequest request(List<Long> ids, Long ownerId, Long vetId, Boolean withoutAnimals) {
+        return new BulkDeleteRequest(ids, ownerId, vetId, withoutAnimals);
+    }
+}
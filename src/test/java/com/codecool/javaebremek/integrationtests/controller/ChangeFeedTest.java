@@ -0,0 +1,205 @@
+package com.codecool.javaebremek.integrationtests.controller;
+
+import com.codecool.javaebremek.changes.Outbox;
+import com.codecool.javaebremek.controller.ChangeController;
+import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.model.ChangeEvent;
+import com.codecool.javaebremek.model.EntityNames;
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.model.Vet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+public class ChangeFeedTest {
+
+    @LocalServerPort
+    private int port;
+    private String baseUrl;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private Outbox outbox;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setBaseUrl() {
+        this.baseUrl = "http://localhost:" + port;
+    }
+
+    @Test
+    public void writes_areRecordedInOrder() {
+        Owner owner = testRestTemplate.postForObject(baseUrl + "/owners", new Owner(null, "Joe", null), Owner.class);
+        testRestTemplate.put(baseUrl + "/owners/" + owner.getId(), new Owner(null, "Joey", null));
+        Animal animal = testRestTemplate.postForObject(baseUrl + "/animals",
+                new Animal(null, "Jax", new Owner(owner.getId(), null, null), null), Animal.class);
+        testRestTemplate.delete(baseUrl + "/animals/" + animal.getId());
+
+        ChangeEvent[] events = testRestTemplate.getForObject(baseUrl + "/changes", ChangeEvent[].class);
+        assertEquals(List.of("owners:CREATED", "owners:UPDATED", "animals:CREATED", "animals:DELETED"), describe(events));
+        assertEquals(List.of(1L, 2L, 3L, 4L), Stream.of(events).map(ChangeEvent::getSequence).collect(Collectors.toList()));
+        assertEquals(animal.getId(), events[3].getEntityId());
+    }
+
+    @Test
+    public void unversionedPut_recordsAndReturnsNewVersion() {
+        Owner owner = testRestTemplate.postForObject(baseUrl + "/owners", new Owner(null, "Joe", null), Owner.class);
+        Vet vet = testRestTemplate.postForObject(baseUrl + "/vets", new Vet(null, "Jim", null), Vet.class);
+
+        Owner updatedOwner = testRestTemplate.exchange(baseUrl + "/owners/" + owner.getId(), HttpMethod.PUT,
+                new HttpEntity<>(new Owner(null, "Joey", null)), Owner.class).getBody();
+        Vet updatedVet = testRestTemplate.exchange(baseUrl + "/vets/" + vet.getId(), HttpMethod.PUT,
+                new HttpEntity<>(new Vet(null, "Jimmy", null)), Vet.class).getBody();
+
+        assertEquals(owner.getVersion() + 1, updatedOwner.getVersion());
+        assertEquals(vet.getVersion() + 1, updatedVet.getVersion());
+        ChangeEvent[] events = testRestTemplate.getForObject(baseUrl + "/changes?since=2", ChangeEvent[].class);
+        assertEquals(List.of("owners:UPDATED", "vets:UPDATED"), describe(events));
+        assertEquals(updatedOwner.getVersion(), events[0].getVersion());
+        assertEquals(updatedVet.getVersion(), events[1].getVersion());
+    }
+
+    @Test
+    public void findSince_returnsLaterEventsAndLastSequence() {
+        testRestTemplate.postForObject(baseUrl + "/owners", new Owner(null, "Joe", null), Owner.class);
+        testRestTemplate.postForObject(baseUrl + "/vets", new Vet(null, "Jim", null), Vet.class);
+
+        ResponseEntity<ChangeEvent[]> response = testRestTemplate.getForEntity(baseUrl + "/changes?since=1", ChangeEvent[].class);
+        assertEquals(List.of("vets:CREATED"), describe(response.getBody()));
+        assertEquals("2", response.getHeaders().getFirst(ChangeController.LAST_SEQUENCE_HEADER));
+
+        ResponseEntity<ChangeEvent[]> empty = testRestTemplate.getForEntity(baseUrl + "/changes?since=2", ChangeEvent[].class);
+        assertEquals(0, empty.getBody().length);
+        assertEquals("2", empty.getHeaders().getFirst(ChangeController.LAST_SEQUENCE_HEADER));
+    }
+
+    @Test
+    public void failedWrite_leavesNoEvent() {
+        Owner owner = testRestTemplate.postForObject(baseUrl + "/owners", new Owner(null, "Joe", null), Owner.class);
+        testRestTemplate.postForObject(baseUrl + "/animals",
+                new Animal(null, "Jax", new Owner(owner.getId(), null, null), null), Animal.class);
+
+        ResponseEntity<String> delete = testRestTemplate.exchange(baseUrl + "/owners/" + owner.getId(),
+                HttpMethod.DELETE, HttpEntity.EMPTY, String.class);
+        assertTrue(delete.getStatusCode().isError());
+
+        ChangeEvent[] events = testRestTemplate.getForObject(baseUrl + "/changes", ChangeEvent[].class);
+        assertEquals(List.of("owners:CREATED", "animals:CREATED"), describe(events));
+    }
+
+    @Test
+    public void write_committingAfterALaterOne_isPublishedAfterIt() throws Exception {
+        // The slow write inserts its event first but commits last, after a consumer has already read past the fast one.
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Thread slow = new Thread(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            outbox.record(EntityNames.OWNERS, 424242L, ChangeEvent.Operation.UPDATED, 1L);
+            inserted.countDown();
+            try {
+                commit.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        slow.start();
+        inserted.await();
+        Owner owner = testRestTemplate.postForObject(baseUrl + "/owners", new Owner(null, "Joe", null), Owner.class);
+
+        ChangeEvent[] first = testRestTemplate.getForObject(baseUrl + "/changes", ChangeEvent[].class);
+        assertEquals(List.of(owner.getId()), entityIds(first));
+        assertEquals(1L, first[0].getSequence());
+
+        commit.countDown();
+        slow.join();
+        ChangeEvent[] next = testRestTemplate.getForObject(baseUrl + "/changes?since=1", ChangeEvent[].class);
+        assertEquals(List.of(424242L), entityIds(next));
+        assertEquals(2L, next[0].getSequence());
+    }
+
+    @Test
+    public void findSince_negativeSequence_returnsBadRequest() {
+        ResponseEntity<String> response = testRestTemplate.getForEntity(baseUrl + "/changes?since=-1", String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    public void subscribe_streamsBatchesAndResumesFromLastEventId() throws Exception {
+        testRestTemplate.postForObject(baseUrl + "/owners", new Owner(null, "Joe", null), Owner.class);
+        testRestTemplate.postForObject(baseUrl + "/owners", new Owner(null, "Jan", null), Owner.class);
+
+        List<String> first = readFirstEvent(null);
+        assertTrue(first.contains("id:2"));
+        assertTrue(first.contains("event:changes"));
+        assertTrue(first.stream().anyMatch(line -> line.startsWith("data:[") && line.contains("\"sequence\":1")));
+
+        testRestTemplate.postForObject(baseUrl + "/owners", new Owner(null, "Jim", null), Owner.class);
+        List<String> resumed = readFirstEvent("2");
+        assertTrue(resumed.contains("id:3"));
+        assertTrue(resumed.stream().noneMatch(line -> line.contains("\"sequence\":2")));
+    }
+
+    private List<String> readFirstEvent(String lastEventId) {
+        return assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + "/changes"))
+                    .header("Accept", "text/event-stream");
+            if (lastEventId != null) {
+                request.header("Last-Event-ID", lastEventId);
+            }
+            HttpResponse<Stream<String>> response = HttpClient.newHttpClient()
+                    .send(request.build(), HttpResponse.BodyHandlers.ofLines());
+            Iterator<String> lines = response.body().iterator();
+            List<String> event = new ArrayList<>();
+            while (lines.hasNext()) {
+                String line = lines.next();
+                if (line.isEmpty() && !event.isEmpty()) {
+                    break;
+                }
+                event.add(line);
+            }
+            response.body().close();
+            return event;
+        });
+    }
+
+    private static List<Long> entityIds(ChangeEvent[] events) {
+        return Stream.of(events).map(ChangeEvent::getEntityId).collect(Collectors.toList());
+    }
+
+    private static List<String> describe(ChangeEvent[] events) {
+        return Stream.of(events).map(event -> event.getEntity() + ":" + event.getOperation()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,105 @@
+package com.codecool.javaebremek.integrationtests.controller;
+
+import com.codecool.javaebremek.coalescing.SingleFlight;
+import com.codecool.javaebremek.model.Vet;
+import com.codecool.javaebremek.repository.VetRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+public class CoalescingTest {
+
+    private static final int CALLERS = 8;
+
+    @LocalServerPort
+    private int port;
+    private String baseUrl;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @SpyBean
+    private VetRepository vetRepository;
+
+    private Vet vet;
+
+    @BeforeEach
+    public void setUp() {
+        this.baseUrl = "http://localhost:" + port + "/vets";
+        vet = vetRepository.save(new Vet(null, "Jim", null));
+        // A slow row load keeps the first request in flight long enough for the others to pile up behind it.
+        // The repository is a JDK proxy, so the real call goes through the spy's delegating default answer.
+        Answer<?> delegate = mockingDetails(vetRepository).getMockCreationSettings().getDefaultAnswer();
+        doAnswer(invocation -> {
+            Thread.sleep(500);
+            return delegate.answer(invocation);
+        }).when(vetRepository).findById(anyLong());
+    }
+
+    @Test
+    public void getVetById_concurrentMisses_shareOneDatabaseLoad() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ResponseEntity<Vet>>> responses = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            responses.add(executor.submit(() -> {
+                start.await();
+                return testRestTemplate.getForEntity(baseUrl + "/" + vet.getId(), Vet.class);
+            }));
+        }
+        start.countDown();
+
+        for (Future<ResponseEntity<Vet>> response : responses) {
+            ResponseEntity<Vet> result = response.get(10, TimeUnit.SECONDS);
+            assertEquals(HttpStatus.OK, result.getStatusCode());
+            assertEquals("Jim", result.getBody().getName());
+        }
+        executor.shutdown();
+        verify(vetRepository, times(1)).findById(vet.getId());
+        assertEquals(1, calls("leader"));
+        assertEquals(CALLERS - 1, calls("collapsed"));
+    }
+
+    @Test
+    public void getVetById_sequentialMisses_eachLoadFromDatabase() {
+        testRestTemplate.getForEntity(baseUrl + "/999", String.class);
+        testRestTemplate.getForEntity(baseUrl + "/999", String.class);
+        verify(vetRepository, times(2)).findById(999L);
+        assertEquals(2, calls("leader"));
+    }
+
+    private double calls(String result) {
+        return meterRegistry.get(SingleFlight.CALLS_METRIC).tag("name", "vets").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,78 @@
+package com.codecool.javaebremek.integrationtests.controller;
+
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.service.OwnerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "remek.execution.mode=bounded",
+        "remek.execution.max-concurrent=1",
+        "remek.execution.queue-timeout-ms=10"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+public class ExecutionModeTest {
+
+    @LocalServerPort
+    private int port;
+    private String baseUrl;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @MockBean
+    private OwnerService ownerService;
+
+    @BeforeEach
+    public void setBaseUrl() {
+        this.baseUrl = "http://localhost:" + port + "/owners";
+    }
+
+    @Test
+    public void getOwnerById_allPermitsTaken_returnsTooManyRequestsWithRetryAfter() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(ownerService.findById(1L)).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return Optional.of(new Owner(1L, "Joe", null));
+        });
+        CompletableFuture<ResponseEntity<Owner>> slow = CompletableFuture.supplyAsync(
+                () -> testRestTemplate.getForEntity(baseUrl + "/1", Owner.class));
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+        ResponseEntity<String> rejected = testRestTemplate.getForEntity(baseUrl + "/1", String.class);
+        release.countDown();
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatusCode());
+        assertEquals("1", rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(HttpStatus.OK, slow.get(10, TimeUnit.SECONDS).getStatusCode());
+    }
+
+    @Test
+    public void getOwnerById_permitReleased_servesNextRequest() {
+        when(ownerService.findById(1L)).thenReturn(Optional.of(new Owner(1L, "Joe", null)));
+        assertEquals(HttpStatus.OK, testRestTemplate.getForEntity(baseUrl + "/1", Owner.class).getStatusCode());
+        assertEquals(HttpStatus.OK, testRestTemplate.getForEntity(baseUrl + "/1", Owner.class).getStatusCode());
+    }
+}
@@ -0,0 +1,52 @@
+package com.codecool.javaebremek.integrationtests.controller;
+
+import com.codecool.javaebremek.export.ExportResult;
+import com.codecool.javaebremek.export.ExportRunner;
+import com.codecool.javaebremek.model.Vet;
+import com.codecool.javaebremek.repository.VetRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "remek.export.dir=target/export-runner-test",
+        "remek.export.entities=vets",
+        "remek.export.format=ndjson",
+        "remek.export.gzip=false",
+        "remek.export.exit=false",
+        "remek.export.chunk-size=2"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+public class ExportRunnerTest {
+
+    @Autowired
+    private ExportRunner exportRunner;
+
+    @Autowired
+    private VetRepository vetRepository;
+
+    @Test
+    public void export_writesFileAndReportsRows() throws IOException {
+        for (String name : List.of("Jim", "Jun", "Jan", "Joe", "Jay")) {
+            vetRepository.save(new Vet(null, name, null));
+        }
+
+        List<ExportResult> results = exportRunner.export();
+
+        assertEquals(1, results.size());
+        assertEquals(5, results.get(0).getRows());
+        List<String> lines = Files.readAllLines(Path.of("target/export-runner-test/vets.ndjson"));
+        assertEquals(5, lines.size());
+        assertEquals("Jay", lines.get(4).replaceAll(".*\"name\":\"([^\"]*)\".*", "$1"));
+    }
+}
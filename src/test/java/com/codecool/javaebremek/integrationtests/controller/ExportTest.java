@@ -0,0 +1,106 @@
+package com.codecool.javaebremek.integrationtests.controller;
+
+import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.repository.AnimalRepository;
+import com.codecool.javaebremek.repository.OwnerRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A chunk size of 2 makes every export cross several chunk boundaries.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "remek.export.chunk-size=2")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+public class ExportTest {
+
+    @LocalServerPort
+    private int port;
+    private String baseUrl;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    private final List<Animal> animals = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        this.baseUrl = "http://localhost:" + port + "/export";
+        Owner owner = ownerRepository.save(new Owner(null, "Joe", null));
+        ownerRepository.save(new Owner(null, "Jan", null));
+        ownerRepository.save(new Owner(null, "Jim", null));
+        animals.add(animalRepository.save(new Animal(null, "Jax", owner, null)));
+        animals.add(animalRepository.save(new Animal(null, "Rex, \"the\" dog", owner, null)));
+        animals.add(animalRepository.save(new Animal(null, "Joy", null, null)));
+        animals.add(animalRepository.save(new Animal(null, "Jay", null, null)));
+        animals.add(animalRepository.save(new Animal(null, "Jed", null, null)));
+    }
+
+    @Test
+    public void exportAnimals_gzippedCsv_containsEveryRowInIdOrder() throws IOException {
+        ResponseEntity<byte[]> response = testRestTemplate.getForEntity(baseUrl + "/animals?format=csv", byte[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("application/gzip", response.getHeaders().getContentType().toString());
+        assertTrue(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION).contains("animals.csv.gz"));
+
+        String[] lines = gunzip(response.getBody()).split("\r\n");
+        assertEquals(6, lines.length);
+        assertEquals("id,name,ownerId,vetId,version", lines[0]);
+        Animal rex = animals.get(1);
+        assertEquals(rex.getId() + ",\"Rex, \"\"the\"\" dog\"," + rex.getOwner().getId() + ",,0", lines[2]);
+        assertTrue(lines[5].startsWith(animals.get(4).getId() + ",Jed,"));
+    }
+
+    @Test
+    public void exportOwners_plainNdjson_writesOneObjectPerLine() throws IOException {
+        ResponseEntity<String> response = testRestTemplate.getForEntity(baseUrl + "/owners?gzip=false", String.class);
+        assertEquals("application/x-ndjson", response.getHeaders().getContentType().toString());
+
+        String[] lines = response.getBody().split("\n");
+        assertEquals(3, lines.length);
+        JsonNode last = new ObjectMapper().readTree(lines[2]);
+        assertEquals("Jim", last.get("name").asText());
+    }
+
+    @Test
+    public void exportUnknownEntity_returnsNotFound() {
+        assertEquals(HttpStatus.NOT_FOUND, testRestTemplate.getForEntity(baseUrl + "/changes", String.class).getStatusCode());
+    }
+
+    @Test
+    public void exportUnknownFormat_returnsBadRequest() {
+        assertEquals(HttpStatus.BAD_REQUEST, testRestTemplate.getForEntity(baseUrl + "/vets?format=xml", String.class).getStatusCode());
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
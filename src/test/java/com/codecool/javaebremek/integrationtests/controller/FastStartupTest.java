@@ -0,0 +1,73 @@
+package com.codecool.javaebremek.integrationtests.controller;
+
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.stats.AnimalCountReconciler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles({"test", "fast-startup"})
+public class FastStartupTest {
+
+    private static final String SPEC = "{\"openapi\":\"3.0.1\",\"paths\":{}}";
+
+    @LocalServerPort
+    private int port;
+    private String baseUrl;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @DynamicPropertySource
+    static void openApiDir(DynamicPropertyRegistry registry) throws IOException {
+        Path dir = Files.createDirectories(Path.of("target", "fast-startup-test"));
+        Files.writeString(dir.resolve("openapi.json"), SPEC);
+        registry.add("remek.openapi.dir", dir::toString);
+    }
+
+    @BeforeEach
+    public void setBaseUrl() {
+        this.baseUrl = "http://localhost:" + port;
+    }
+
+    @Test
+    public void lazyContext_servesRequestsAndStillSchedulesBackgroundJobs() {
+        assertFalse(beanFactory.containsSingleton("ownerController"));
+        assertTrue(beanFactory.containsSingleton(beanFactory.getBeanNamesForType(AnimalCountReconciler.class)[0]));
+
+        Owner created = testRestTemplate.postForObject(baseUrl + "/owners", new Owner(null, "Joe", null), Owner.class);
+        Owner found = testRestTemplate.getForObject(baseUrl + "/owners/" + created.getId(), Owner.class);
+        assertEquals("Joe", found.getName());
+    }
+
+    @Test
+    public void openApi_servedFromPrebuiltFileInsteadOfScanning() {
+        ResponseEntity<String> prebuilt = testRestTemplate.getForEntity(baseUrl + "/openapi.json", String.class);
+        assertEquals(HttpStatus.OK, prebuilt.getStatusCode());
+        assertEquals(SPEC, prebuilt.getBody());
+        assertEquals(HttpStatus.NOT_FOUND, testRestTemplate.getForEntity(baseUrl + "/v3/api-docs", String.class).getStatusCode());
+    }
+}
@@ -0,0 +1,112 @@
+package com.codecool.javaebremek.integrationtests.controller;
+
+import com.codecool.javaebremek.cache.CacheConfig;
+import com.codecool.javaebremek.hotkeys.HotKey;
+import com.codecool.javaebremek.hotkeys.HotKeyPrewarmer;
+import com.codecool.javaebremek.hotkeys.HotKeyTracker;
+import com.codecool.javaebremek.model.EntityNames;
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.model.Vet;
+import com.codecool.javaebremek.repository.OwnerRepository;
+import com.codecool.javaebremek.repository.VetRepository;
+import com.codecool.javaebremek.testsupport.QueryCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+public class HotKeyTest {
+
+    @LocalServerPort
+    private int port;
+    private String baseUrl;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private VetRepository vetRepository;
+
+    @Autowired
+    private HotKeyTracker hotKeyTracker;
+
+    @Autowired
+    private HotKeyPrewarmer hotKeyPrewarmer;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Owner hotOwner;
+    private Owner coldOwner;
+
+    @BeforeEach
+    public void setUp() {
+        this.baseUrl = "http://localhost:" + port;
+        hotOwner = ownerRepository.save(new Owner(null, "Joe", null));
+        coldOwner = ownerRepository.save(new Owner(null, "Jan", null));
+    }
+
+    @Test
+    public void getOwnerById_cachedReads_areCountedAndRankedHottestFirst() {
+        for (int i = 0; i < 5; i++) {
+            testRestTemplate.getForObject(baseUrl + "/owners/" + hotOwner.getId(), Owner.class);
+        }
+        testRestTemplate.getForObject(baseUrl + "/owners/" + coldOwner.getId(), Owner.class);
+
+        HotKey[] keys = testRestTemplate.getForObject(baseUrl + "/hot-keys/owners", HotKey[].class);
+        assertEquals(2, keys.length);
+        assertEquals(hotOwner.getId(), keys[0].getId());
+        assertEquals(5, keys[0].getEstimate());
+        assertEquals(HttpStatus.NOT_FOUND, testRestTemplate.getForEntity(baseUrl + "/hot-keys/cats", String.class).getStatusCode());
+    }
+
+    @Test
+    public void rewarmAfterEvictions_clearedCache_reloadsHotKeysInOneStatement() {
+        testRestTemplate.getForObject(baseUrl + "/owners/" + hotOwner.getId(), Owner.class);
+        testRestTemplate.getForObject(baseUrl + "/owners/" + coldOwner.getId(), Owner.class);
+        cacheManager.getCache(CacheConfig.OWNERS).clear();
+        QueryCounter.reset();
+
+        hotKeyPrewarmer.rewarmAfterEvictions();
+
+        QueryCounter.assertStatementCount(1);
+        assertNotNull(cacheManager.getCache(CacheConfig.OWNERS).get(hotOwner.getId()));
+        testRestTemplate.getForObject(baseUrl + "/owners/" + coldOwner.getId(), Owner.class);
+        QueryCounter.assertStatementCount(1);
+    }
+
+    @Test
+    public void prewarm_fromSnapshot_restoresCountsAndFillsCache() {
+        Vet vet = vetRepository.save(new Vet(null, "Jim", null));
+        hotKeyTracker.record(EntityNames.VETS, vet.getId());
+        hotKeyTracker.record(EntityNames.VETS, vet.getId());
+        hotKeyTracker.snapshot();
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from hot_key where entity = 'vets'", Integer.class));
+        assertNull(cacheManager.getCache(CacheConfig.VETS).get(vet.getId()));
+
+        hotKeyPrewarmer.prewarm();
+
+        assertNotNull(cacheManager.getCache(CacheConfig.VETS).get(vet.getId()));
+        assertEquals(4, hotKeyTracker.top(EntityNames.VETS).get(0).getEstimate());
+    }
+}
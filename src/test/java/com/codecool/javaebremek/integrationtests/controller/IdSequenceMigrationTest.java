@@ -0,0 +1,67 @@
+package com.codecool.javaebremek.integrationtests.controller;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IdSequenceMigrationTest {
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:migrationtest" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "remek", "remek");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    public void migrate_rowsInsertedBeforeSequences_firstPooledBlockStartsAboveExistingIds() {
+        migrateTo("4");
+        for (String table : List.of("vet", "owner")) {
+            for (int i = 0; i < 3; i++) {
+                jdbcTemplate.update("insert into " + table + " (name) values ('Joe')");
+            }
+        }
+        jdbcTemplate.update("insert into animal (name, owner_id, vet_id) values ('Jax', 3, 3)");
+        jdbcTemplate.update("insert into animal (id, name) values (120, 'Max')");
+
+        migrateTo("latest");
+
+        assertFirstBlockAbove("vet", 3);
+        assertFirstBlockAbove("owner", 3);
+        assertFirstBlockAbove("animal", 120);
+    }
+
+    @Test
+    public void migrate_emptyTables_sequencesStillHandOutPositiveIds() {
+        migrateTo("latest");
+
+        assertFirstBlockAbove("vet", 0);
+        assertEquals(1, nextBlockStart("owner"));
+    }
+
+    private void migrateTo(String target) {
+        Flyway.configure().dataSource(dataSource).target(target).load().migrate();
+    }
+
+    private void assertFirstBlockAbove(String table, long maxId) {
+        assertEquals(maxId, jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + table, Long.class));
+        long blockStart = nextBlockStart(table);
+        assertTrue(blockStart > maxId, table + " block starts at " + blockStart);
+    }
+
+    // The pooled optimizer uses next_val - (allocationSize - 1) .. next_val as the first block of ids.
+    private long nextBlockStart(String table) {
+        return jdbcTemplate.queryForObject("select next value for " + table + "_seq", Long.class) - (ALLOCATION_SIZE - 1);
+    }
+}
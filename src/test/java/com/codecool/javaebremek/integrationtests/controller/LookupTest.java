@@ -0,0 +1,149 @@
+package com.codecool.javaebremek.integrationtests.controller;
+
+import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.model.BulkDeleteRequest;
+import com.codecool.javaebremek.model.BulkDeleteResult;
+import com.codecool.javaebremek.model.LookupRequest;
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.model.Vet;
+import com.codecool.javaebremek.repository.AnimalRepository;
+import com.codecool.javaebremek.repository.OwnerRepository;
+import com.codecool.javaebremek.repository.VetRepository;
+import com.codecool.javaebremek.testsupport.QueryCounter;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"remek.lookup.chunk-size=3", "remek.lookup.max-ids=10"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+public class LookupTest {
+
+    @LocalServerPort
+    private int port;
+    private String baseUrl;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private VetRepository vetRepository;
+
+    private final List<Owner> owners = new ArrayList<>();
+    private Animal first;
+    private Animal second;
+
+    @BeforeEach
+    public void setUp() {
+        this.baseUrl = "http://localhost:" + port;
+        for (String name : List.of("Joe", "Jan", "Jed", "Jon", "Jay")) {
+            owners.add(ownerRepository.save(new Owner(null, name, null)));
+        }
+        Vet vet = vetRepository.save(new Vet(null, "Jim", null));
+        first = animalRepository.save(new Animal(null, "Jax", owners.get(0), vet));
+        second = animalRepository.save(new Animal(null, "Max", null, null));
+        QueryCounter.reset();
+    }
+
+    @Test
+    public void getAnimalsByIds_keepsRequestOrderAndReportsMissingInOneStatement() {
+        String ids = second.getId() + "," + first.getId() + ",999999," + second.getId();
+        JsonNode result = testRestTemplate.getForObject(baseUrl + "/animals?ids=" + ids, JsonNode.class);
+
+        assertEquals(List.of(second.getId(), first.getId()), idsOf(result.get("items")));
+        assertEquals(owners.get(0).getId(), result.get("items").get(1).get("ownerId").asLong());
+        assertEquals(List.of(999999L), longs(result.get("missing")));
+        QueryCounter.assertStatementCount(1);
+    }
+
+    @Test
+    public void getAnimalsByIds_fullView_fetchesOwnersAndVetsInOneStatement() {
+        JsonNode result = testRestTemplate.getForObject(baseUrl + "/animals?view=full&ids=" + first.getId(), JsonNode.class);
+
+        assertEquals("Joe", result.get("items").get(0).get("owner").get("name").asText());
+        assertEquals("Jim", result.get("items").get(0).get("vet").get("name").asText());
+        QueryCounter.assertStatementCount(1);
+    }
+
+    @Test
+    public void lookupOwners_moreIdsThanChunk_runsOneStatementPerChunk() {
+        List<Long> ids = owners.stream().map(Owner::getId).sorted((a, b) -> Long.compare(b, a)).collect(Collectors.toList());
+        JsonNode result = testRestTemplate.postForObject(baseUrl + "/owners/lookup", new LookupRequest(ids), JsonNode.class);
+
+        assertEquals(ids, idsOf(result.get("items")));
+        assertEquals(0, result.get("missing").size());
+        QueryCounter.assertStatementCount(2);
+    }
+
+    @Test
+    public void getVetsByIds_unknownIdOnly_returnsEmptyItems() {
+        JsonNode result = testRestTemplate.getForObject(baseUrl + "/vets?ids=424242", JsonNode.class);
+
+        assertEquals(0, result.get("items").size());
+        assertEquals(List.of(424242L), longs(result.get("missing")));
+    }
+
+    @Test
+    public void lookup_invalidRequests_returnBadRequest() {
+        List<Long> tooMany = LongStream.rangeClosed(1, 11).boxed().collect(Collectors.toList());
+        assertEquals(HttpStatus.BAD_REQUEST, testRestTemplate.postForEntity(baseUrl + "/animals/lookup", new LookupRequest(tooMany), String.class).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, testRestTemplate.postForEntity(baseUrl + "/vets/lookup", new LookupRequest(List.of()), String.class).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, testRestTemplate.getForEntity(baseUrl + "/owners?ids=1,x", String.class).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, testRestTemplate.getForEntity(baseUrl + "/animals?ids=1&size=5", String.class).getStatusCode());
+    }
+
+    @Test
+    public void bulkDeleteOwners_moreIdsThanChunk_locksAndDeletesPerChunk() {
+        List<Long> ids = owners.subList(1, 5).stream().map(Owner::getId).collect(Collectors.toList());
+        BulkDeleteResult result = testRestTemplate.postForObject(baseUrl + "/owners/bulk-delete",
+                new BulkDeleteRequest(ids, null, null, null), BulkDeleteResult.class);
+
+        assertEquals(4, result.getDeleted());
+        // lock owners, lock their animals and delete owners, each in a chunk of three and a chunk of one
+        QueryCounter.assertStatementCount(6);
+        assertEquals(1, ownerRepository.count());
+    }
+
+    @Test
+    public void bulkDelete_moreIdsThanMax_returnsBadRequest() {
+        List<Long> tooMany = LongStream.rangeClosed(1, 11).boxed().collect(Collectors.toList());
+        for (String path : List.of("/animals", "/owners", "/vets")) {
+            assertEquals(HttpStatus.BAD_REQUEST, testRestTemplate.postForEntity(baseUrl + path + "/bulk-delete",
+                    new BulkDeleteRequest(tooMany, null, null, null), String.class).getStatusCode());
+        }
+        assertEquals(2, animalRepository.count());
+    }
+
+    private static List<Long> idsOf(JsonNode items) {
+        List<Long> ids = new ArrayList<>();
+        items.forEach(item -> ids.add(item.get("id").asLong()));
+        return ids;
+    }
+
+    private static List<Long> longs(JsonNode array) {
+        List<Long> values = new ArrayList<>();
+        array.forEach(value -> values.add(value.asLong()));
+        return values;
+    }
+}
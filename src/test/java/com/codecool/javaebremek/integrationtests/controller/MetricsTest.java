@@ -0,0 +1,50 @@
+package com.codecool.javaebremek.integrationtests.controller;
+
+import com.codecool.javaebremek.model.Owner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+@AutoConfigureMetrics
+public class MetricsTest {
+
+    @LocalServerPort
+    private int port;
+    private String baseUrl;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        this.baseUrl = "http://localhost:" + port;
+    }
+
+    @Test
+    public void prometheus_exposesEndpointRepositoryAndPoolMetricsLabelledByEntity() {
+        Owner owner = testRestTemplate.postForObject(baseUrl + "/owners", new Owner(null, "Joe", null), Owner.class);
+        testRestTemplate.getForObject(baseUrl + "/owners/" + owner.getId() + "/animals", String.class);
+        testRestTemplate.getForObject(baseUrl + "/animals", String.class);
+
+        String scrape = testRestTemplate.getForObject(baseUrl + "/actuator/prometheus", String.class);
+
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket{entity=\"owners\""));
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket{entity=\"animals\""));
+        assertTrue(scrape.contains("spring_data_repository_invocations_seconds_count{entity=\"animals\""));
+        assertTrue(scrape.contains("method=\"findSummariesByOwnerId\""));
+        assertTrue(scrape.contains("remek_http_server_statements_count{entity=\"owners\""));
+        assertTrue(scrape.contains("hikaricp_connections_active"));
+        assertTrue(scrape.contains("hibernate_entities_loads_total"));
+    }
+}
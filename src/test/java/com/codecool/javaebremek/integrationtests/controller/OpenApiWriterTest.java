@@ -0,0 +1,39 @@
+package com.codecool.javaebremek.integrationtests.controller;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "remek.openapi.output=target/openapi-writer-test/openapi.json",
+        "remek.openapi.exit=false"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+public class OpenApiWriterTest {
+
+    private static final Path SPEC = Path.of("target/openapi-writer-test/openapi.json");
+
+    // Runs before the context starts, so the assertions only see a file written by this run.
+    @BeforeAll
+    static void deleteStaleSpec() throws IOException {
+        Files.deleteIfExists(SPEC);
+    }
+
+    @Test
+    public void startup_writesSpecOfEveryController() throws IOException {
+        String spec = Files.readString(SPEC);
+        assertTrue(spec.startsWith("{\"openapi\""));
+        for (String path : new String[]{"\"/owners\"", "\"/vets/{id}\"", "\"/animals/bulk-delete\"", "\"/export/{entity}\""}) {
+            assertTrue(spec.contains(path), path);
+        }
+    }
+}
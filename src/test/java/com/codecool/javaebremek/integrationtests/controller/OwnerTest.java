@@ -1,6 +1,8 @@
 package com.codecool.javaebremek.integrationtests.controller;
 
+import com.codecool.javaebremek.model.Animal;
 import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.testsupport.QueryCounter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,10 +14,13 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -75,6 +80,16 @@ public class OwnerTest {
 
     }
 
+    @Test
+    public void updateOwner_withoutVersion_returnsVersionTheUpdateProduced() {
+        Owner owner = testRestTemplate.postForObject(baseUrl, new Owner(null, "Jan", null), Owner.class);
+        HttpEntity<Owner> httpEntity = createHttpEntityWithMediaTypeJson(new Owner(null, "Jon", null));
+        testRestTemplate.exchange(baseUrl + "/" + owner.getId(), HttpMethod.PUT, httpEntity, Owner.class);
+        ResponseEntity<Owner> second = testRestTemplate.exchange(baseUrl + "/" + owner.getId(), HttpMethod.PUT, httpEntity, Owner.class);
+        assertEquals(owner.getVersion() + 2, second.getBody().getVersion());
+        assertEquals(second.getBody().getVersion(), testRestTemplate.getForObject(baseUrl + "/" + owner.getId(), Owner.class).getVersion());
+    }
+
     @Test
     public void deleteOwnerById_withSomePostedOwners_getAllShouldReturnRemainingOwners() {
         Owner testOwner1 = new Owner(null, "Jay", null);
@@ -94,6 +109,61 @@ public class OwnerTest {
         assertTrue(contain(remainingOwners, testOwner3));
     }
 
+    @Test
+    public void getOwnerById_calledTwice_secondCallIsServedFromCache() {
+        Owner testOwnerResult = testRestTemplate.postForObject(baseUrl, new Owner(null, "Joe", null), Owner.class);
+        testRestTemplate.getForObject(baseUrl + "/" + testOwnerResult.getId(), Owner.class);
+        QueryCounter.reset();
+
+        Owner result = testRestTemplate.getForObject(baseUrl + "/" + testOwnerResult.getId(), Owner.class);
+        assertEquals("Joe", result.getName());
+        QueryCounter.assertStatementCount(0);
+
+        Map<?, ?>[] caches = testRestTemplate.getForObject("http://localhost:" + port + "/caches", Map[].class);
+        Map<?, ?> owners = Arrays.stream(caches).filter(cache -> "owners".equals(cache.get("name"))).findFirst().orElseThrow();
+        assertEquals(1, owners.get("hits"));
+        assertEquals(1, owners.get("misses"));
+    }
+
+    @Test
+    public void getOwnerById_afterUpdateOfCachedOwner_returnsCommittedName() {
+        Owner owner = testRestTemplate.postForObject(baseUrl, new Owner(null, "Joe", null), Owner.class);
+        testRestTemplate.getForObject(baseUrl + "/" + owner.getId(), Owner.class);
+
+        owner.setName("Jim");
+        owner.setVersion(null);
+        testRestTemplate.put(baseUrl + "/" + owner.getId(), owner);
+        assertEquals("Jim", testRestTemplate.getForObject(baseUrl + "/" + owner.getId(), Owner.class).getName());
+    }
+
+    @Test
+    public void getOwnerById_withMatchingIfNoneMatch_returnsNotModifiedFromCache() {
+        Owner owner = testRestTemplate.postForObject(baseUrl, new Owner(null, "Joe", null), Owner.class);
+        String eTag = testRestTemplate.getForEntity(baseUrl + "/" + owner.getId(), Owner.class).getHeaders().getETag();
+        QueryCounter.reset();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        ResponseEntity<String> result = testRestTemplate.exchange(baseUrl + "/" + owner.getId(), HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.NOT_MODIFIED, result.getStatusCode());
+        QueryCounter.assertStatementCount(0);
+    }
+
+    @Test
+    public void getAnimalsByOwnersId_afterAnimalAdded_returnsNewETag() {
+        Owner owner = testRestTemplate.postForObject(baseUrl, new Owner(null, "Joe", null), Owner.class);
+        String animalsUrl = baseUrl + "/" + owner.getId() + "/animals";
+        String before = testRestTemplate.getForEntity(animalsUrl, String.class).getHeaders().getETag();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(before);
+        assertEquals(HttpStatus.NOT_MODIFIED, testRestTemplate.exchange(animalsUrl, HttpMethod.GET, new HttpEntity<>(headers), String.class).getStatusCode());
+
+        testRestTemplate.postForObject("http://localhost:" + port + "/animals", new Animal(null, "Jax", new Owner(owner.getId(), null, null), null), Animal.class);
+        ResponseEntity<String> after = testRestTemplate.exchange(animalsUrl, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.OK, after.getStatusCode());
+        assertNotEquals(before, after.getHeaders().getETag());
+    }
+
     private HttpEntity<Owner> createHttpEntityWithMediaTypeJson(Owner testOwner) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
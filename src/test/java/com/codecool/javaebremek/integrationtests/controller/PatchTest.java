@@ -0,0 +1,179 @@
+package com.codecool.javaebremek.integrationtests.controller;
+
+import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.model.Vet;
+import com.codecool.javaebremek.patch.MergePatch;
+import com.codecool.javaebremek.repository.AnimalRepository;
+import com.codecool.javaebremek.repository.OwnerRepository;
+import com.codecool.javaebremek.repository.VetRepository;
+import com.codecool.javaebremek.testsupport.QueryCounter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+public class PatchTest {
+
+    @LocalServerPort
+    private int port;
+    private String baseUrl;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private VetRepository vetRepository;
+
+    private Owner owner;
+    private Vet vet;
+    private Vet otherVet;
+    private Animal animal;
+
+    @BeforeEach
+    public void setUp() {
+        this.baseUrl = "http://localhost:" + port;
+        owner = ownerRepository.save(new Owner(null, "Joe", null));
+        vet = vetRepository.save(new Vet(null, "Jim", null));
+        otherVet = vetRepository.save(new Vet(null, "Jun", null));
+        // Created through the API so the owner and vet animal counters start at one.
+        animal = testRestTemplate.postForObject(baseUrl + "/animals", new Animal(null, "Jax", owner, vet), Animal.class);
+        QueryCounter.reset();
+    }
+
+    @Test
+    public void patchAnimal_newVetOnly_updatesVetColumnAndKeepsName() {
+        ResponseEntity<Animal> response = patch("/animals/" + animal.getId(), "{\"vet\": {\"id\": " + otherVet.getId() + "}}", null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("true", response.getHeaders().getFirst(MergePatch.CHANGED_HEADER));
+        assertEquals("Jun", response.getBody().getVet().getName());
+        assertEquals(animal.getVersion() + 1, response.getBody().getVersion());
+        String update = singleAnimalUpdate();
+        assertTrue(update.contains("vet_id"), update);
+        assertFalse(update.contains("name"), update);
+        assertFalse(update.contains("owner_id"), update);
+
+        Animal stored = animalRepository.findById(animal.getId()).orElseThrow();
+        assertEquals("Jax", stored.getName());
+        assertEquals(owner.getId(), stored.getOwner().getId());
+        assertEquals(0, vetRepository.findById(vet.getId()).orElseThrow().getAnimalCount());
+        assertEquals(1, vetRepository.findById(otherVet.getId()).orElseThrow().getAnimalCount());
+    }
+
+    @Test
+    public void patchAnimal_nullOwner_removesOwner() {
+        ResponseEntity<Animal> response = patch("/animals/" + animal.getId(), "{\"owner\": null}", null);
+
+        assertNull(response.getBody().getOwner());
+        assertNull(animalRepository.findById(animal.getId()).orElseThrow().getOwner());
+        assertEquals(0, ownerRepository.findById(owner.getId()).orElseThrow().getAnimalCount());
+    }
+
+    @Test
+    public void patchAnimal_sameValues_reportsNoChangeWithoutWrite() {
+        ResponseEntity<Animal> response = patch("/animals/" + animal.getId(), "{\"name\": \"Jax\", \"vet\": {\"id\": " + vet.getId() + "}}", null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("false", response.getHeaders().getFirst(MergePatch.CHANGED_HEADER));
+        assertEquals(animal.getVersion(), response.getBody().getVersion());
+        assertTrue(QueryCounter.statements().stream().noneMatch(sql -> sql.toLowerCase().startsWith("update")));
+    }
+
+    @Test
+    public void patchAnimal_invalidPatch_returnsBadRequest() {
+        assertEquals(HttpStatus.BAD_REQUEST, patch("/animals/" + animal.getId(), "{\"name\": null}", null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, patch("/animals/" + animal.getId(), "{\"id\": 12345}", null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, patch("/animals/" + animal.getId(), "{\"vet\": {\"id\": 12345}}", null).getStatusCode());
+        assertEquals("Jax", animalRepository.findById(animal.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    public void patchAnimal_unknownId_returnsNotFound() {
+        assertEquals(HttpStatus.NOT_FOUND, patch("/animals/12345", "{\"name\": \"Max\"}", null).getStatusCode());
+    }
+
+    @Test
+    public void patchOwner_staleIfMatch_returnsPreconditionFailed() {
+        ResponseEntity<Owner> first = patch("/owners/" + owner.getId(), "{\"name\": \"Ann\"}", "\"" + owner.getVersion() + "\"", Owner.class);
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertEquals("\"" + (owner.getVersion() + 1) + "\"", first.getHeaders().getETag());
+
+        ResponseEntity<Owner> second = patch("/owners/" + owner.getId(), "{\"name\": \"Amy\"}", "\"" + owner.getVersion() + "\"", Owner.class);
+        assertEquals(HttpStatus.PRECONDITION_FAILED, second.getStatusCode());
+        assertEquals("Ann", ownerRepository.findById(owner.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    public void patchVet_newName_isStoredAndReturned() {
+        ResponseEntity<Vet> response = patch("/vets/" + vet.getId(), "{\"name\": \"Kim\"}", null, Vet.class);
+
+        assertEquals("Kim", response.getBody().getName());
+        assertEquals("Kim", testRestTemplate.getForObject(baseUrl + "/vets/" + vet.getId(), Vet.class).getName());
+    }
+
+    private String singleAnimalUpdate() {
+        List<String> updates = QueryCounter.statements().stream()
+                .map(String::toLowerCase)
+                .filter(sql -> sql.startsWith("update animal "))
+                .collect(Collectors.toList());
+        assertEquals(1, updates.size(), updates.toString());
+        return updates.get(0);
+    }
+
+    private ResponseEntity<Animal> patch(String path, String body, String ifMatch) {
+        return patch(path, body, ifMatch, Animal.class);
+    }
+
+    // HttpURLConnection, behind TestRestTemplate here, cannot send PATCH, so the JDK HTTP client is used instead.
+    private <T> ResponseEntity<T> patch(String path, String body, String ifMatch, Class<T> type) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header(HttpHeaders.CONTENT_TYPE, MergePatch.MERGE_PATCH_VALUE)
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(body));
+        if (ifMatch != null) {
+            request.header(HttpHeaders.IF_MATCH, ifMatch);
+        }
+        try {
+            HttpResponse<String> response = HttpClient.newHttpClient().send(request.build(), HttpResponse.BodyHandlers.ofString());
+            HttpHeaders headers = new HttpHeaders();
+            response.headers().map().forEach(headers::addAll);
+            T entity = response.body().isEmpty() ? null : objectMapper.readValue(response.body(), type);
+            return new ResponseEntity<>(entity, headers, HttpStatus.valueOf(response.statusCode()));
+        } catch (IOException | InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
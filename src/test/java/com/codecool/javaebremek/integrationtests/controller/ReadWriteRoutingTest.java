@@ -0,0 +1,146 @@
+package com.codecool.javaebremek.integrationtests.controller;
+
+import com.codecool.javaebremek.datasource.ReadYourWritesFilter;
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.repository.OwnerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+
+// The replica is a separate, never-replicated H2 database, so a read that lands on it cannot see the primary's rows.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "remek.datasource.replica.url=jdbc:h2:mem:remekreplicatest",
+        "remek.datasource.replica.username=remek",
+        "remek.datasource.replica.password=remek",
+        "remek.datasource.replica.migrate=true"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+public class ReadWriteRoutingTest {
+
+    @LocalServerPort
+    private int port;
+    private String baseUrl;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replica;
+
+    @SpyBean
+    private OwnerRepository ownerRepository;
+
+    @BeforeEach
+    public void setBaseUrl() {
+        this.baseUrl = "http://localhost:" + port + "/owners";
+    }
+
+    @Test
+    public void getOwners_readOnly_isServedByReplica() {
+        new JdbcTemplate(replica).update("insert into owner (id, name, version) values (100, 'Replica', 0)");
+
+        Owner[] owners = testRestTemplate.getForObject(baseUrl, Owner[].class);
+        assertEquals(1, owners.length);
+        assertEquals("Replica", owners[0].getName());
+        // Single rows go through the cache, which only the primary fills.
+        assertNull(testRestTemplate.getForObject(baseUrl + "/100", Owner.class));
+    }
+
+    @Test
+    public void addOwner_writesToPrimaryOnly() {
+        testRestTemplate.postForObject(baseUrl, new Owner(null, "Joe", null), Owner.class);
+
+        assertEquals(0, testRestTemplate.getForObject(baseUrl, Owner[].class).length);
+        assertEquals(0, new JdbcTemplate(replica).queryForObject("select count(*) from owner", Integer.class));
+    }
+
+    @Test
+    public void getOwners_afterOwnWrite_isPinnedToPrimary() {
+        ResponseEntity<Owner> created = testRestTemplate.postForEntity(baseUrl, new Owner(null, "Joe", null), Owner.class);
+        String cookie = created.getHeaders().getFirst(HttpHeaders.SET_COOKIE);
+        assertNotNull(cookie);
+        assertTrue(cookie.startsWith(ReadYourWritesFilter.COOKIE + "="));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.COOKIE, cookie.split(";")[0]);
+        Owner[] owners = testRestTemplate.exchange(baseUrl, HttpMethod.GET, new HttpEntity<>(headers), Owner[].class).getBody();
+        assertEquals(1, owners.length);
+        assertEquals("Joe", owners[0].getName());
+    }
+
+    @Test
+    public void streamOwners_afterOwnWrite_isPinnedToPrimary() {
+        ResponseEntity<Owner> created = testRestTemplate.postForEntity(baseUrl, new Owner(null, "Joe", null), Owner.class);
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.COOKIE, created.getHeaders().getFirst(HttpHeaders.SET_COOKIE).split(";")[0]);
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+
+        // The body is written on an async thread, after the request thread has returned.
+        Owner[] pinned = testRestTemplate.exchange(baseUrl + "/stream", HttpMethod.GET, new HttpEntity<>(headers), Owner[].class).getBody();
+        assertEquals(1, pinned.length);
+        assertEquals("Joe", pinned[0].getName());
+        assertEquals(0, testRestTemplate.getForObject(baseUrl + "/stream", Owner[].class).length);
+    }
+
+    @Test
+    public void getOwnerById_unpinned_cachesPrimaryRowNotReplicaRow() {
+        Owner owner = ownerRepository.save(new Owner(null, "Primary", null));
+        new JdbcTemplate(replica).update("insert into owner (id, name, version) values (?, 'Replica', 0)", owner.getId());
+
+        assertEquals("Primary", testRestTemplate.getForObject(baseUrl + "/" + owner.getId(), Owner.class).getName());
+        assertEquals("Primary", testRestTemplate.getForObject(baseUrl + "/" + owner.getId(), Owner.class).getName());
+    }
+
+    @Test
+    public void getOwnerById_pinnedDuringUnpinnedLoad_doesNotShareReplicaResult() throws Exception {
+        Owner owner = ownerRepository.save(new Owner(null, "Primary", null));
+        new JdbcTemplate(replica).update("insert into owner (id, name, version) values (?, 'Replica', 0)", owner.getId());
+        // A slow row load keeps the unpinned request in flight while the pinned one arrives for the same id.
+        Answer<?> delegate = mockingDetails(ownerRepository).getMockCreationSettings().getDefaultAnswer();
+        doAnswer(invocation -> {
+            Thread.sleep(500);
+            return delegate.answer(invocation);
+        }).when(ownerRepository).findById(anyLong());
+
+        CompletableFuture<Owner> unpinned = CompletableFuture.supplyAsync(
+                () -> testRestTemplate.getForObject(baseUrl + "/" + owner.getId(), Owner.class));
+        Thread.sleep(150);
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.COOKIE, ReadYourWritesFilter.COOKIE + "=" + (System.currentTimeMillis() + 60_000));
+        Owner pinned = testRestTemplate.exchange(baseUrl + "/" + owner.getId(), HttpMethod.GET, new HttpEntity<>(headers), Owner.class).getBody();
+
+        assertEquals("Primary", pinned.getName());
+        assertEquals("Primary", unpinned.get(10, TimeUnit.SECONDS).getName());
+        Owner cachedPinned = testRestTemplate.exchange(baseUrl + "/" + owner.getId(), HttpMethod.GET, new HttpEntity<>(headers), Owner.class).getBody();
+        assertEquals("Primary", cachedPinned.getName());
+    }
+}
@@ -0,0 +1,56 @@
+package com.codecool.javaebremek.integrationtests.controller;
+
+import com.codecool.javaebremek.model.Owner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "remek.slow-query.threshold-ms=0",
+        "spring.jpa.show-sql=false"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+@ExtendWith(OutputCaptureExtension.class)
+public class SlowQueryLogTest {
+
+    @LocalServerPort
+    private int port;
+    private String baseUrl;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @BeforeEach
+    public void setBaseUrl() {
+        this.baseUrl = "http://localhost:" + port + "/owners";
+    }
+
+    @Test
+    public void addOwner_overThreshold_logsHandlerWithRedactedParameters(CapturedOutput output) {
+        testRestTemplate.postForObject(baseUrl, new Owner(null, "Confidential Name", null), Owner.class);
+
+        assertTrue(output.getOut().contains("from OwnerController#add: insert into owner"));
+        assertTrue(output.getOut().contains(":String"));
+        assertFalse(output.getOut().contains("Confidential Name"));
+    }
+
+    @Test
+    public void getOwnerById_overThreshold_logsControllerMethod(CapturedOutput output) {
+        Owner owner = testRestTemplate.postForObject(baseUrl, new Owner(null, "Joe", null), Owner.class);
+        testRestTemplate.getForObject(baseUrl + "/" + owner.getId(), Owner.class);
+
+        assertTrue(output.getOut().contains("from OwnerController#findById: select"));
+    }
+}
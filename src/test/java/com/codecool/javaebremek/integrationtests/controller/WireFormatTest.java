@@ -0,0 +1,166 @@
+package com.codecool.javaebremek.integrationtests.controller;
+
+import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.model.AnimalCount;
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.model.Vet;
+import com.codecool.javaebremek.repository.AnimalRepository;
+import com.codecool.javaebremek.repository.OwnerRepository;
+import com.codecool.javaebremek.repository.VetRepository;
+import com.codecool.javaebremek.wireformat.ProtobufCodec;
+import com.codecool.javaebremek.wireformat.ProtobufHttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+public class WireFormatTest {
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @LocalServerPort
+    private int port;
+    private String baseUrl;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private VetRepository vetRepository;
+
+    private final ProtobufCodec codec = new ProtobufCodec();
+    private Animal animal;
+
+    @BeforeEach
+    public void setUp() {
+        this.baseUrl = "http://localhost:" + port;
+        Owner owner = ownerRepository.save(new Owner(null, "Joe", null));
+        Vet vet = vetRepository.save(new Vet(null, "Jim", null));
+        animal = animalRepository.save(new Animal(null, "Rex", owner, vet));
+        animalRepository.save(new Animal(null, "Max", owner, null));
+    }
+
+    @Test
+    public void getAnimals_acceptCbor_returnsCborWithOwnerAndVet() throws Exception {
+        ResponseEntity<byte[]> response = get("/animals?view=full", MediaType.APPLICATION_CBOR);
+
+        assertEquals(MediaType.APPLICATION_CBOR, response.getHeaders().getContentType());
+        Animal[] animals = new CBORMapper().readValue(response.getBody(), Animal[].class);
+        assertEquals(2, animals.length);
+        assertEquals("Jim", animals[0].getVet().getName());
+    }
+
+    @Test
+    public void addOwner_smileBody_isReadAndAnsweredInSmile() throws Exception {
+        ObjectMapper smile = new SmileMapper();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(SMILE);
+        headers.setAccept(List.of(SMILE));
+        byte[] body = smile.writeValueAsBytes(new Owner(null, "Ann", null));
+
+        ResponseEntity<byte[]> response = testRestTemplate.exchange(baseUrl + "/owners", HttpMethod.POST, new HttpEntity<>(body, headers), byte[].class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("Ann", smile.readValue(response.getBody(), Owner.class).getName());
+    }
+
+    @Test
+    public void getAnimals_acceptProtobuf_returnsLengthDelimitedMessages() throws Exception {
+        ResponseEntity<byte[]> response = get("/animals?view=full", ProtobufHttpMessageConverter.PROTOBUF);
+
+        assertEquals(ProtobufHttpMessageConverter.PROTOBUF, response.getHeaders().getContentType());
+        List<Animal> animals = codec.readList(new ByteArrayInputStream(response.getBody()), Animal.class);
+        assertEquals(2, animals.size());
+        assertEquals("Joe", animals.get(0).getOwner().getName());
+        assertEquals("Max", animals.get(1).getName());
+    }
+
+    @Test
+    public void getAnimalById_acceptProtobuf_returnsSingleMessage() throws Exception {
+        ResponseEntity<byte[]> response = get("/animals/" + animal.getId(), ProtobufHttpMessageConverter.PROTOBUF);
+
+        Animal read = codec.read(new ByteArrayInputStream(response.getBody()), Animal.class);
+        assertEquals(animal.getId(), read.getId());
+        assertEquals("Jim", read.getVet().getName());
+    }
+
+    @Test
+    public void getOwnerStats_acceptProtobuf_usesDeclaredElementType() throws Exception {
+        ResponseEntity<byte[]> response = get("/owners/stats", ProtobufHttpMessageConverter.PROTOBUF);
+
+        List<AnimalCount> counts = codec.readList(new ByteArrayInputStream(response.getBody()), AnimalCount.class);
+        assertEquals(1, counts.size());
+    }
+
+    @Test
+    public void acceptProtobuf_listsWithoutSchema_returnNotAcceptable() {
+        for (String path : List.of("/changes", "/schemas", "/hot-keys/owners", "/owners?ids=1")) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setAccept(List.of(ProtobufHttpMessageConverter.PROTOBUF));
+            ResponseEntity<String> response = testRestTemplate.exchange(baseUrl + path, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+            assertEquals(HttpStatus.NOT_ACCEPTABLE, response.getStatusCode(), path);
+        }
+    }
+
+    @Test
+    public void addVet_protobufBody_isAccepted() throws Exception {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        codec.write(new Vet(null, "Amy", null), body);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(ProtobufHttpMessageConverter.PROTOBUF);
+
+        Vet created = testRestTemplate.postForObject(baseUrl + "/vets", new HttpEntity<>(body.toByteArray(), headers), Vet.class);
+
+        assertEquals("Amy", created.getName());
+    }
+
+    @Test
+    public void getOwners_withoutAccept_staysJson() {
+        ResponseEntity<String> response = testRestTemplate.getForEntity(baseUrl + "/owners", String.class);
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+    }
+
+    @Test
+    public void getSchema_returnsGeneratedProto() {
+        String proto = testRestTemplate.getForObject(baseUrl + "/schemas/animals", String.class);
+        assertTrue(proto.contains("message Animal"), proto);
+        assertEquals(HttpStatus.NOT_FOUND, testRestTemplate.getForEntity(baseUrl + "/schemas/cats", String.class).getStatusCode());
+    }
+
+    private ResponseEntity<byte[]> get(String path, MediaType accept) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(accept));
+        ResponseEntity<byte[]> response = testRestTemplate.exchange(baseUrl + path, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response;
+    }
+}
@@ -0,0 +1,39 @@
+package com.codecool.javaebremek.testsupport;
+
+import com.codecool.javaebremek.metrics.StatementCountingInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class QueryCounter extends StatementCountingInspector {
+
+    private static final AtomicInteger COUNT = new AtomicInteger();
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.incrementAndGet();
+        STATEMENTS.add(sql);
+        return super.inspect(sql);
+    }
+
+    public static void reset() {
+        COUNT.set(0);
+        STATEMENTS.clear();
+    }
+
+    public static List<String> statements() {
+        return List.copyOf(STATEMENTS);
+    }
+
+    public static int count() {
+        return COUNT.get();
+    }
+
+    public static void assertStatementCount(int expected) {
+        assertEquals(expected, count(), "Unexpected number of SQL statements, check for N+1 selects");
+    }
+}
@@ -1,31 +1,49 @@
 package com.codecool.javaebremek.unittests;
 
+import com.codecool.javaebremek.batch.BatchInserter;
 import com.codecool.javaebremek.controller.AnimalController;
 import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.model.AnimalSummary;
+import com.codecool.javaebremek.model.LookupResult;
+import com.codecool.javaebremek.paging.KeysetPage;
 import com.codecool.javaebremek.service.AnimalService;
+import com.codecool.javaebremek.streaming.JsonStreamer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.times;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest({AnimalController.class})
+@Import({BatchInserter.class, JsonStreamer.class})
 public class AnimalTest {
 
     @Autowired
@@ -37,6 +55,8 @@ public class AnimalTest {
     private static final Animal TEST_ANIMAL1 = new Animal(null, "Jax", null, null);
     private static final Animal TEST_ANIMAL2 = new Animal(null, "Jun", null, null);
     private static final Animal TEST_ANIMAL_WITH_INVALID_NAME = new Animal(null, "", null, null);
+    private static final AnimalSummary TEST_SUMMARY1 = new AnimalSummary(1L, "Jax", 3L, null, 0L);
+    private static final AnimalSummary TEST_SUMMARY2 = new AnimalSummary(2L, "Jun", null, 4L, 0L);
 
     public static String asJsonString(final Object object) {
         try {
@@ -61,6 +81,79 @@ public class AnimalTest {
         verify(animalService, times(1)).add(any());
     }
 
+    @Test
+    void streamAll_acceptNdjson_shouldWriteOneLinePerAnimal() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<AnimalSummary> action = invocation.getArgument(0);
+            action.accept(TEST_SUMMARY1);
+            action.accept(TEST_SUMMARY2);
+            return null;
+        }).when(animalService).streamAll(any());
+        MvcResult result = mockMvc.perform(get("/animals/stream").accept(BatchInserter.NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BatchInserter.NDJSON))
+                .andExpect(content().string(
+                        asJsonString(TEST_SUMMARY1) + "\n" + asJsonString(TEST_SUMMARY2) + "\n"));
+    }
+
+    @Test
+    void streamAll_acceptJson_shouldWriteJsonArray() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<AnimalSummary> action = invocation.getArgument(0);
+            action.accept(TEST_SUMMARY1);
+            action.accept(TEST_SUMMARY2);
+            return null;
+        }).when(animalService).streamAll(any());
+        MvcResult result = mockMvc.perform(get("/animals/stream").accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].name", is(TEST_SUMMARY2.getName())));
+    }
+
+    @Test
+    void search_inputQuery_shouldReturnRankedSummaries() throws Exception {
+        when(animalService.search("ja", 5)).thenReturn(List.of(TEST_SUMMARY1));
+        mockMvc.perform(get("/animals/search").param("q", "ja").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name", is(TEST_SUMMARY1.getName())));
+    }
+
+    @Test
+    void search_blankQuery_shouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/animals/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+        verify(animalService, never()).search(any(), any());
+    }
+
+    @Test
+    void addBatch_inputNdjson_shouldReportResultPerItem() throws Exception {
+        when(animalService.addAll(any())).thenAnswer(invocation -> {
+            List<Animal> animals = invocation.getArgument(0);
+            animals.forEach(animal -> animal.setId(7L));
+            return animals;
+        });
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/animals/batch")
+                        .contentType(BatchInserter.NDJSON)
+                        .content(asJsonString(TEST_ANIMAL1) + "\n" + asJsonString(TEST_ANIMAL_WITH_INVALID_NAME) + "\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BatchInserter.NDJSON))
+                .andExpect(content().string(
+                        "{\"index\":1,\"status\":\"INVALID\",\"errors\":[\"name must not be blank\"]}\n" +
+                        "{\"index\":0,\"status\":\"CREATED\",\"id\":7}\n"));
+        verify(animalService, times(1)).addAll(any());
+    }
+
     @Test
     void updateById_inputGoodAnimal_shouldReturnAnimal() throws Exception {
         Long id = 1L;
@@ -105,6 +198,19 @@ public class AnimalTest {
         verify(animalService, times(1)).updateById(anyLong(), any());
     }
 
+    @Test
+    void updateByIdWithStaleVersion_shouldReturnConflictStatus() throws Exception {
+        Long id = 1L;
+        when(animalService.updateById(anyLong(), any())).thenThrow(new ObjectOptimisticLockingFailureException(Animal.class, id));
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/animals/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(TEST_ANIMAL1)))
+                .andExpect(status().isConflict());
+        verify(animalService, times(1)).updateById(anyLong(), any());
+    }
+
     @Test
     void findById_inputValidId_shouldReturnGoodAnimal() throws Exception {
         Long id = 1L;
@@ -119,12 +225,30 @@ public class AnimalTest {
     }
 
     @Test
-    void findAll_shouldReturnAllAnimals() throws Exception {
+    void findAll_shouldReturnAllAnimalSummaries() throws Exception {
+        List<AnimalSummary> animals = List.of(TEST_SUMMARY1, TEST_SUMMARY2);
+        when(animalService.findAll(any(), any())).thenReturn(new KeysetPage<>(animals, null));
+        mockMvc.perform(get("/animals"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", is(TEST_SUMMARY1.getId().intValue())))
+                .andExpect(jsonPath("$[0].name", is(TEST_SUMMARY1.getName())))
+                .andExpect(jsonPath("$[0].ownerId", is(TEST_SUMMARY1.getOwnerId().intValue())))
+                .andExpect(jsonPath("$[0].vetId", is(TEST_SUMMARY1.getVetId())))
+                .andExpect(jsonPath("$[1].id", is(TEST_SUMMARY2.getId().intValue())))
+                .andExpect(jsonPath("$[1].name", is(TEST_SUMMARY2.getName())))
+                .andExpect(jsonPath("$[1].ownerId", is(TEST_SUMMARY2.getOwnerId())))
+                .andExpect(jsonPath("$[1].vetId", is(TEST_SUMMARY2.getVetId().intValue())));
+        verify(animalService, times(1)).findAll(any(), any());
+    }
+
+    @Test
+    void findAll_withFullView_shouldReturnAllAnimals() throws Exception {
         TEST_ANIMAL1.setId(1L);
         TEST_ANIMAL2.setId(2L);
         List<Animal> animals = List.of(TEST_ANIMAL1, TEST_ANIMAL2);
-        when(animalService.findAll()).thenReturn(animals);
-        mockMvc.perform(get("/animals"))
+        when(animalService.findAllWithOwnerAndVet(any(), any())).thenReturn(new KeysetPage<>(animals, null));
+        mockMvc.perform(get("/animals").param("view", "full"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(2)))
                 .andExpect(jsonPath("$[0].id", is(TEST_ANIMAL1.getId().intValue())))
@@ -135,7 +259,59 @@ public class AnimalTest {
                 .andExpect(jsonPath("$[1].name", is(TEST_ANIMAL2.getName())))
                 .andExpect(jsonPath("$[1].owner", is(TEST_ANIMAL2.getOwner())))
                 .andExpect(jsonPath("$[1].vet", is(TEST_ANIMAL2.getVet())));
-        verify(animalService, times(1)).findAll();
+        verify(animalService, times(1)).findAllWithOwnerAndVet(any(), any());
+    }
+
+    @Test
+    void findAll_withMoreAnimals_shouldReturnNextCursor() throws Exception {
+        when(animalService.findAll(any(), any())).thenReturn(new KeysetPage<>(List.of(TEST_SUMMARY1), "next"));
+        mockMvc.perform(get("/animals").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().string(KeysetPage.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(header().string(HttpHeaders.LINK, containsString("cursor=next")));
+    }
+
+    @Test
+    void findAll_inputInvalidCursor_shouldReturnBadRequestStatus() throws Exception {
+        when(animalService.findAll(any(), any())).thenThrow(new IllegalArgumentException());
+        mockMvc.perform(get("/animals").param("cursor", "broken"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void findAll_withFields_shouldReturnOnlySelectedFields() throws Exception {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", 1L);
+        row.put("name", "Jax");
+        when(animalService.findFields(any(), any(), any())).thenReturn(new KeysetPage<>(List.of(row), null));
+        mockMvc.perform(get("/animals").param("fields", "id,name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name", is("Jax")))
+                .andExpect(jsonPath("$[0].ownerId").doesNotExist());
+        verify(animalService, times(1)).findFields(any(), any(), any());
+        verify(animalService, never()).findAll(any(), any());
+    }
+
+    @Test
+    void findAll_withIds_shouldReturnLookupResult() throws Exception {
+        when(animalService.findAllById(List.of(2L, 1L, 9L)))
+                .thenReturn(new LookupResult<>(List.of(TEST_SUMMARY2, TEST_SUMMARY1), List.of(9L)));
+        mockMvc.perform(get("/animals").param("ids", "2,1,9"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id", is(2)))
+                .andExpect(jsonPath("$.items[1].id", is(1)))
+                .andExpect(jsonPath("$.missing[0]", is(9)));
+        verify(animalService, never()).findAll(any(), any());
+    }
+
+    @Test
+    void findAll_withUnknownField_shouldReturnBadRequestStatus() throws Exception {
+        mockMvc.perform(get("/animals").param("fields", "id,password"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/animals").param("expand", "owner").param("view", "full"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(animalService);
     }
 
     @Test
@@ -144,4 +320,20 @@ public class AnimalTest {
         mockMvc.perform(delete("/animals/{id}", anyLong())).andExpect(status().isOk());
         verify(animalService, times(1)).deleteById(anyLong());
     }
+
+    @Test
+    void deleteAll_byOwnerAndIds_shouldReturnBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/animals/bulk-delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1],\"ownerId\":2}"))
+                .andExpect(status().isBadRequest());
+        verify(animalService, never()).deleteAll(any());
+    }
+
+    @Test
+    void deleteById_notExisting_shouldReturnNotFound() throws Exception {
+        doThrow(new RuntimeException()).when(animalService).deleteById(anyLong());
+        mockMvc.perform(delete("/animals/{id}", 1L)).andExpect(status().isNotFound());
+    }
 }
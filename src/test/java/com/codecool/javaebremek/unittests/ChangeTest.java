@@ -0,0 +1,69 @@
+package com.codecool.javaebremek.unittests;
+
+import com.codecool.javaebremek.changes.ChangeFeed;
+import com.codecool.javaebremek.controller.ChangeController;
+import com.codecool.javaebremek.model.ChangeEvent;
+import com.codecool.javaebremek.service.ChangeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest({ChangeController.class})
+public class ChangeTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ChangeService changeService;
+
+    @MockBean
+    private ChangeFeed changeFeed;
+
+    @Test
+    void findSince_shouldReturnEventsWithLastSequence() throws Exception {
+        ChangeEvent event = new ChangeEvent(11L, 8L, "animals", 3L, ChangeEvent.Operation.UPDATED, 2L, Instant.now());
+        when(changeService.findSince(anyLong(), any())).thenReturn(List.of(event));
+        mockMvc.perform(get("/changes").param("since", "7").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].sequence", is(8)))
+                .andExpect(jsonPath("$[0].operation", is("UPDATED")))
+                .andExpect(header().string(ChangeController.LAST_SEQUENCE_HEADER, "8"));
+        verify(changeService, times(1)).findSince(7L, 10);
+    }
+
+    @Test
+    void findSince_invalidLimit_shouldReturnBadRequest() throws Exception {
+        when(changeService.findSince(anyLong(), any())).thenThrow(new IllegalArgumentException());
+        mockMvc.perform(get("/changes").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void subscribe_lastEventIdWinsOverSince() throws Exception {
+        when(changeFeed.subscribe(anyLong())).thenReturn(new SseEmitter());
+        mockMvc.perform(get("/changes").param("since", "1").header("Last-Event-ID", "5")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+        verify(changeFeed, times(1)).subscribe(5L);
+    }
+}
@@ -0,0 +1,70 @@
+package com.codecool.javaebremek.unittests;
+
+import com.codecool.javaebremek.hotkeys.CountMinSketch;
+import com.codecool.javaebremek.hotkeys.HeavyHitters;
+import com.codecool.javaebremek.hotkeys.HotKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HeavyHittersTest {
+
+    @Test
+    void sketch_neverUnderestimates() {
+        CountMinSketch sketch = new CountMinSketch(64);
+        long[] counts = new long[1000];
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(counts.length);
+            counts[key]++;
+            sketch.add(key);
+        }
+        for (int key = 0; key < counts.length; key++) {
+            assertTrue(sketch.estimate(key) >= counts[key]);
+        }
+    }
+
+    @Test
+    void top_skewedReads_findsHottestKeysInOrder() {
+        HeavyHitters hitters = new HeavyHitters(5, 1024);
+        Random random = new Random(7);
+        for (int i = 0; i < 50_000; i++) {
+            hitters.record(1000 + random.nextInt(10_000));
+            if (i % 10 == 0) {
+                hitters.record(1);
+            }
+            if (i % 20 == 0) {
+                hitters.record(2);
+            }
+            if (i % 40 == 0) {
+                hitters.record(3);
+            }
+        }
+
+        List<Long> top = hitters.top(3).stream().map(HotKey::getId).collect(Collectors.toList());
+        assertEquals(List.of(1L, 2L, 3L), top);
+        assertTrue(hitters.top(3).get(0).getEstimate() >= 5000);
+        assertEquals(5, hitters.top(10).size());
+    }
+
+    @Test
+    void decay_halvesEstimates_soNewHotKeysTakeOver() {
+        HeavyHitters hitters = new HeavyHitters(1, 1024);
+        for (int i = 0; i < 100; i++) {
+            hitters.record(1);
+        }
+        hitters.decay();
+        hitters.decay();
+        assertEquals(25, hitters.top(1).get(0).getEstimate());
+
+        for (int i = 0; i < 30; i++) {
+            hitters.record(2);
+        }
+        assertEquals(2L, hitters.top(1).get(0).getId());
+    }
+}
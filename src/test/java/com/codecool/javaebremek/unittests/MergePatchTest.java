@@ -0,0 +1,37 @@
+package com.codecool.javaebremek.unittests;
+
+import com.codecool.javaebremek.patch.MergePatch;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MergePatchTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // The examples of RFC 7396 appendix A.
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "{\"a\":\"b\"}                | {\"a\":\"c\"}            | {\"a\":\"c\"}",
+            "{\"a\":\"b\"}                | {\"b\":\"c\"}            | {\"a\":\"b\",\"b\":\"c\"}",
+            "{\"a\":\"b\"}                | {\"a\":null}             | {}",
+            "{\"a\":\"b\",\"b\":\"c\"}    | {\"a\":null}             | {\"b\":\"c\"}",
+            "{\"a\":[\"b\"]}              | {\"a\":\"c\"}            | {\"a\":\"c\"}",
+            "{\"a\":\"c\"}                | {\"a\":[\"b\"]}          | {\"a\":[\"b\"]}",
+            "{\"a\":{\"b\":\"c\"}}        | {\"a\":{\"b\":\"d\",\"c\":null}} | {\"a\":{\"b\":\"d\"}}",
+            "{\"a\":[{\"b\":\"c\"}]}      | {\"a\":[1]}              | {\"a\":[1]}",
+            "[\"a\",\"b\"]                | [\"c\",\"d\"]            | [\"c\",\"d\"]",
+            "{\"a\":\"b\"}                | [\"c\"]                  | [\"c\"]",
+            "{\"a\":\"foo\"}              | null                     | null",
+            "{\"e\":null}                 | {\"a\":1}                | {\"e\":null,\"a\":1}",
+            "[1,2]                        | {\"a\":\"b\",\"c\":null} | {\"a\":\"b\"}",
+            "{}                           | {\"a\":{\"bb\":{\"ccc\":null}}} | {\"a\":{\"bb\":{}}}"
+    })
+    void merge_rfcExamples_shouldProduceExpectedResult(String target, String patch, String expected) throws Exception {
+        JsonNode result = MergePatch.merge(objectMapper.readTree(target), objectMapper.readTree(patch));
+        assertEquals(objectMapper.readTree(expected), result);
+    }
+}
@@ -0,0 +1,103 @@
+package com.codecool.javaebremek.unittests;
+
+import com.codecool.javaebremek.search.NameIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class NameIndexTest {
+
+    private NameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NameIndex();
+        index.put(1L, 0, "Maxwell");
+        index.put(2L, 0, "Big Max");
+        index.put(3L, 0, "Climax");
+        index.put(4L, 0, "Max");
+        index.put(5L, 0, "Rex");
+    }
+
+    @Test
+    void search_mixedMatches_ranksPrefixThenWordPrefixThenSubstring() {
+        assertEquals(List.of(1L, 4L, 2L, 3L), index.search("max", 10));
+    }
+
+    @Test
+    void search_limit_returnsBestRankedOnly() {
+        assertEquals(List.of(1L, 4L), index.search("MAX", 2));
+    }
+
+    @Test
+    void search_shortQuery_matchesPrefixesOnly() {
+        assertEquals(List.of(1L, 4L), index.search("m", 10));
+        assertEquals(List.of(5L), index.search("re", 10));
+        assertEquals(List.of(), index.search("ex", 10));
+    }
+
+    @Test
+    void search_accentsAndCase_areIgnored() {
+        index.put(6L, 0, "Zoë  Ångström");
+        assertEquals(List.of(6L), index.search("zoe ang", 10));
+        assertEquals(List.of(6L), index.search("ÄNGST", 10));
+    }
+
+    @Test
+    void put_renamedId_isFoundUnderNewNameOnly() {
+        index.put(5L, 1, "Maximus");
+        assertEquals(List.of(), index.search("rex", 10));
+        assertEquals(List.of(1L, 4L, 5L, 2L, 3L), index.search("max", 10));
+    }
+
+    @Test
+    void remove_id_isNoLongerFound() {
+        index.remove(4L);
+        assertEquals(List.of(1L, 2L, 3L), index.search("max", 10));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void put_olderVersionArrivingLate_isIgnored() {
+        index.put(5L, 2, "Maximus");
+        index.put(5L, 1, "Rexy");
+        assertEquals(List.of(), index.search("rex", 10));
+        assertEquals(List.of(1L, 4L, 5L, 2L, 3L), index.search("max", 10));
+    }
+
+    @Test
+    void put_afterRemove_isIgnored() {
+        index.remove(5L);
+        index.put(5L, 1, "Rex");
+        assertEquals(List.of(), index.search("rex", 10));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void put_concurrentChangesToOneId_leaveOnlyTheNewestName() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int version = 1; version <= 2000; version++) {
+                long v = version;
+                writes.add(executor.submit(() -> index.put(6L, v, "Name" + v)));
+            }
+            for (Future<?> write : writes) {
+                write.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(List.of(6L), index.search("name2000", 10));
+        assertEquals(List.of(6L), index.search("nam", 10));
+        assertEquals(List.of(), index.search("name1999", 10));
+        assertEquals(6, index.size());
+    }
+}
@@ -1,13 +1,25 @@
 package com.codecool.javaebremek.unittests;
 
+import com.codecool.javaebremek.batch.BatchInserter;
 import com.codecool.javaebremek.controller.OwnerController;
+import com.codecool.javaebremek.model.AnimalCount;
+import com.codecool.javaebremek.model.AnimalSummary;
+import com.codecool.javaebremek.model.BulkDeleteResult;
+import com.codecool.javaebremek.model.DependentPolicy;
 import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.paging.KeysetPage;
+import com.codecool.javaebremek.patch.MergePatch;
+import com.codecool.javaebremek.patch.PatchResult;
 import com.codecool.javaebremek.service.OwnerService;
+import com.codecool.javaebremek.streaming.JsonStreamer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
@@ -18,14 +30,18 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.times;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest({OwnerController.class})
+@Import({BatchInserter.class, JsonStreamer.class})
 public class OwnerTest {
 
     @Autowired
@@ -112,12 +128,35 @@ public class OwnerTest {
         verify(ownerService, times(1)).findById(id);
     }
 
+    @Test
+    void patchById_inputMergePatch_shouldReturnOwnerAndChangedHeader() throws Exception {
+        Owner patched = new Owner(1L, "Ann", null, 4L, 0);
+        when(ownerService.patchById(eq(1L), any(), eq(3L))).thenReturn(new PatchResult<>(patched, true));
+        mockMvc.perform(patch("/owners/{id}", 1L)
+                        .contentType(MergePatch.MERGE_PATCH_VALUE)
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .content("{\"name\": \"Ann\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("Ann")))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(header().string(MergePatch.CHANGED_HEADER, "true"));
+    }
+
+    @Test
+    void patchById_invalidPatch_shouldReturnBadRequestStatus() throws Exception {
+        when(ownerService.patchById(anyLong(), any(), any())).thenThrow(new IllegalArgumentException());
+        mockMvc.perform(patch("/owners/{id}", 1L)
+                        .contentType(MergePatch.MERGE_PATCH_VALUE)
+                        .content("{\"name\": null}"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void findAll_shouldReturnAllOwners() throws Exception {
         TEST_OWNER1.setId(1L);
         TEST_OWNER2.setId(2L);
         List<Owner> owners = List.of(TEST_OWNER1, TEST_OWNER2);
-        when(ownerService.findAll()).thenReturn(owners);
+        when(ownerService.findAll(any(), any())).thenReturn(new KeysetPage<>(owners, null));
         mockMvc.perform(get("/owners"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(2)))
@@ -125,7 +164,21 @@ public class OwnerTest {
                 .andExpect(jsonPath("$[0].name", is(TEST_OWNER1.getName())))
                 .andExpect(jsonPath("$[1].id", is(TEST_OWNER2.getId().intValue())))
                 .andExpect(jsonPath("$[1].name", is(TEST_OWNER2.getName())));
-        verify(ownerService, times(1)).findAll();
+        verify(ownerService, times(1)).findAll(any(), any());
+    }
+
+    @Test
+    void getAnimalsByOwnersId_shouldReturnAnimalSummariesWithNextCursor() throws Exception {
+        Long id = 1L;
+        AnimalSummary animal = new AnimalSummary(5L, "Jax", id, null, 0L);
+        when(ownerService.getAnimalsByOwnersId(anyLong(), any(), any())).thenReturn(new KeysetPage<>(List.of(animal), "next"));
+        mockMvc.perform(get("/owners/{ownerId}/animals", id).param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(animal.getId().intValue())))
+                .andExpect(jsonPath("$[0].ownerId", is(id.intValue())))
+                .andExpect(header().string(KeysetPage.NEXT_CURSOR_HEADER, "next"));
+        verify(ownerService, times(1)).getAnimalsByOwnersId(id, null, 1);
     }
 
     @Test
@@ -134,4 +187,59 @@ public class OwnerTest {
         mockMvc.perform(delete("/owners/{id}", anyLong())).andExpect(status().isOk());
         verify(ownerService, times(1)).deleteById(anyLong());
     }
+
+    @Test
+    void updateById_ifMatchVersion_shouldUpdateConditionallyOnThatVersion() throws Exception {
+        when(ownerService.updateById(anyLong(), any())).thenReturn(new Owner(1L, "Jax", null));
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/owners/{id}", 1L)
+                        .header(HttpHeaders.IF_MATCH, "\"7\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(new Owner(null, "Jax", null))))
+                .andExpect(status().isOk());
+        verify(ownerService).updateById(eq(1L), argThat(owner -> owner.getVersion() == 7L));
+    }
+
+    @Test
+    void updateById_unknownIfMatch_shouldReturnPreconditionFailed() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/owners/{id}", 1L)
+                        .header(HttpHeaders.IF_MATCH, "W/\"7\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(new Owner(null, "Jax", null))))
+                .andExpect(status().isPreconditionFailed());
+        verify(ownerService, never()).updateById(anyLong(), any());
+    }
+
+    @Test
+    void findAnimalCounts_shouldReturnCountersPage() throws Exception {
+        when(ownerService.findAnimalCounts(any(), any())).thenReturn(new KeysetPage<>(List.of(new AnimalCount(1L, "Jax", 3)), null));
+        mockMvc.perform(get("/owners/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(1)))
+                .andExpect(jsonPath("$[0].animalCount", is(3)));
+        verify(ownerService, times(1)).findAnimalCounts(null, null);
+    }
+
+    @Test
+    void deleteById_withReferencingAnimals_shouldReturnConflict() throws Exception {
+        doThrow(new DataIntegrityViolationException("referenced")).when(ownerService).deleteById(anyLong(), any());
+        mockMvc.perform(delete("/owners/{id}", 1L).param("dependents", "reject"))
+                .andExpect(status().isConflict());
+        verify(ownerService).deleteById(1L, DependentPolicy.REJECT);
+    }
+
+    @Test
+    void deleteAll_cascade_shouldReturnResult() throws Exception {
+        when(ownerService.deleteAll(any(), eq(DependentPolicy.CASCADE))).thenReturn(new BulkDeleteResult(2, 0, 5));
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/owners/bulk-delete")
+                        .param("dependents", "cascade")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1,2]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted", is(2)))
+                .andExpect(jsonPath("$.animalsDeleted", is(5)));
+    }
 }
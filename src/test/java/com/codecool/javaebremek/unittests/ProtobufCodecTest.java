@@ -0,0 +1,64 @@
+package com.codecool.javaebremek.unittests;
+
+import com.codecool.javaebremek.model.Animal;
+import com.codecool.javaebremek.model.ChangeEvent;
+import com.codecool.javaebremek.model.Owner;
+import com.codecool.javaebremek.model.Vet;
+import com.codecool.javaebremek.wireformat.ProtobufCodec;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProtobufCodecTest {
+
+    private final ProtobufCodec codec = new ProtobufCodec();
+
+    @Test
+    void writeList_readList_roundTripsNestedOwnerAndVet() throws IOException {
+        List<Animal> animals = List.of(
+                new Animal(1L, "Rex", new Owner(2L, "Joe", null), new Vet(3L, "Jim", null), 4L),
+                new Animal(300L, "Max", null, null, 0L));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        codec.write(animals, out);
+        List<Animal> read = codec.readList(new ByteArrayInputStream(out.toByteArray()), Animal.class);
+
+        assertEquals(2, read.size());
+        assertEquals("Rex", read.get(0).getName());
+        assertEquals("Joe", read.get(0).getOwner().getName());
+        assertEquals(3L, read.get(0).getVet().getId());
+        assertEquals(4L, read.get(0).getVersion());
+        assertEquals(300L, read.get(1).getId());
+        assertNull(read.get(1).getOwner());
+    }
+
+    @Test
+    void write_emptyOptional_writesNothing() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.write(Optional.empty(), out);
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    void write_typeWithoutSchema_isRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> codec.write(List.of(new ChangeEvent()), new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void proto_includesNestedMessages() {
+        String proto = codec.proto(Animal.class);
+        assertTrue(proto.contains("message Animal"), proto);
+        assertTrue(proto.contains("optional Owner owner"), proto);
+        assertTrue(proto.contains("message Vet"), proto);
+    }
+}
@@ -0,0 +1,138 @@
+package com.codecool.javaebremek.unittests;
+
+import com.codecool.javaebremek.coalescing.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SingleFlightTest {
+
+    private MeterRegistry meterRegistry;
+    private ExecutorService executor;
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CountDownLatch leaderStarted = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void load_concurrentCallsForSameKey_shareOneLoad() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>("vets", Duration.ofSeconds(5), meterRegistry);
+        Future<String> leader = executor.submit(() -> flight.load(1L, this::blockingLoad));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+        CountDownLatch followersReady = new CountDownLatch(8);
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            followers.add(executor.submit(() -> {
+                followersReady.countDown();
+                return flight.load(1L, this::blockingLoad);
+            }));
+        }
+        assertTrue(followersReady.await(5, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        release.countDown();
+
+        String value = leader.get(5, TimeUnit.SECONDS);
+        for (Future<String> follower : followers) {
+            assertSame(value, follower.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, calls("leader"));
+        assertEquals(8, calls("collapsed"));
+    }
+
+    @Test
+    void load_afterCompletion_loadsAgain() {
+        SingleFlight<Long, String> flight = new SingleFlight<>("vets", Duration.ofSeconds(5), meterRegistry);
+        flight.load(1L, this::countingLoad);
+        flight.load(1L, this::countingLoad);
+        assertEquals(2, loads.get());
+        assertEquals(0, meterRegistry.get(SingleFlight.IN_FLIGHT_METRIC).gauge().value());
+    }
+
+    @Test
+    void load_leaderFails_followersSeeSameExceptionAndKeyIsReleased() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>("vets", Duration.ofSeconds(5), meterRegistry);
+        Future<String> leader = executor.submit(() -> flight.load(1L, () -> {
+            blockingLoad();
+            throw new IllegalStateException("database down");
+        }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+        Future<String> follower = executor.submit(() -> flight.load(1L, this::countingLoad));
+        Thread.sleep(200);
+        release.countDown();
+
+        Exception failure = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertEquals("database down", failure.getCause().getMessage());
+        assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertEquals("loaded", flight.load(1L, this::countingLoad));
+    }
+
+    @Test
+    void load_leaderSlowerThanTimeout_followerLoadsOnItsOwn() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>("vets", Duration.ofMillis(50), meterRegistry);
+        executor.submit(() -> flight.load(1L, this::blockingLoad));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        assertEquals("loaded", flight.load(1L, this::countingLoad));
+        assertEquals(1, calls("timeout"));
+        assertEquals(0, calls("collapsed"));
+    }
+
+    @Test
+    void load_differentKeys_doNotWaitForEachOther() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>("vets", Duration.ofSeconds(5), meterRegistry);
+        executor.submit(() -> flight.load(1L, this::blockingLoad));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        assertEquals("loaded", flight.load(2L, this::countingLoad));
+        assertEquals(2, calls("leader"));
+    }
+
+    private String blockingLoad() {
+        loads.incrementAndGet();
+        leaderStarted.countDown();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new String("loaded");
+    }
+
+    private String countingLoad() {
+        loads.incrementAndGet();
+        return "loaded";
+    }
+
+    private double calls(String result) {
+        return meterRegistry.get(SingleFlight.CALLS_METRIC).tag("result", result).counter().count();
+    }
+}
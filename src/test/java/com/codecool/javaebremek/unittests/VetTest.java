@@ -1,13 +1,19 @@
 package com.codecool.javaebremek.unittests;
 
+import com.codecool.javaebremek.batch.BatchInserter;
 import com.codecool.javaebremek.controller.VetController;
+import com.codecool.javaebremek.model.AnimalCount;
+import com.codecool.javaebremek.model.AnimalSummary;
 import com.codecool.javaebremek.model.Vet;
+import com.codecool.javaebremek.paging.KeysetPage;
 import com.codecool.javaebremek.service.VetService;
+import com.codecool.javaebremek.streaming.JsonStreamer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
@@ -21,10 +27,12 @@ import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest({VetController.class})
+@Import({BatchInserter.class, JsonStreamer.class})
 public class VetTest {
 
     @Autowired
@@ -116,7 +124,7 @@ public class VetTest {
         TEST_VET1.setId(1L);
         TEST_VET2.setId(2L);
         List<Vet> vets = List.of(TEST_VET1, TEST_VET2);
-        when(vetService.findAll()).thenReturn(vets);
+        when(vetService.findAll(any(), any())).thenReturn(new KeysetPage<>(vets, null));
         mockMvc.perform(get("/vets"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(2)))
@@ -124,7 +132,21 @@ public class VetTest {
                 .andExpect(jsonPath("$[0].name", is(TEST_VET1.getName())))
                 .andExpect(jsonPath("$[1].id", is(TEST_VET2.getId().intValue())))
                 .andExpect(jsonPath("$[1].name", is(TEST_VET2.getName())));
-        verify(vetService, times(1)).findAll();
+        verify(vetService, times(1)).findAll(any(), any());
+    }
+
+    @Test
+    void getAnimalsByVetsId_shouldReturnAnimalSummariesWithNextCursor() throws Exception {
+        Long id = 1L;
+        AnimalSummary animal = new AnimalSummary(5L, "Jax", null, id, 0L);
+        when(vetService.getAnimalsByVetsId(anyLong(), any(), any())).thenReturn(new KeysetPage<>(List.of(animal), "next"));
+        mockMvc.perform(get("/vets/{vetId}/animals", id).param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(animal.getId().intValue())))
+                .andExpect(jsonPath("$[0].vetId", is(id.intValue())))
+                .andExpect(header().string(KeysetPage.NEXT_CURSOR_HEADER, "next"));
+        verify(vetService, times(1)).getAnimalsByVetsId(id, null, 1);
     }
 
     @Test
@@ -133,4 +155,15 @@ public class VetTest {
         mockMvc.perform(delete("/vets/{id}", anyLong())).andExpect(status().isOk());
         verify(vetService, times(1)).deleteById(anyLong());
     }
+
+    @Test
+    void findAnimalCounts_shouldReturnCountersPage() throws Exception {
+        when(vetService.findAnimalCounts(any(), any())).thenReturn(new KeysetPage<>(List.of(new AnimalCount(1L, "Jax", 3)), null));
+        mockMvc.perform(get("/vets/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(1)))
+                .andExpect(jsonPath("$[0].animalCount", is(3)));
+        verify(vetService, times(1)).findAnimalCounts(null, null);
+    }
 }